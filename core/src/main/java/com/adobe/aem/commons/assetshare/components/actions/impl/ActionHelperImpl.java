@@ -22,6 +22,7 @@ package com.adobe.aem.commons.assetshare.components.actions.impl;
 import com.adobe.aem.commons.assetshare.components.actions.ActionHelper;
 import com.adobe.aem.commons.assetshare.configuration.Config;
 import com.adobe.aem.commons.assetshare.content.AssetModel;
+import com.adobe.aem.commons.assetshare.util.ModelCache;
 import com.day.cq.wcm.api.WCMMode;
 import org.apache.sling.api.SlingHttpServletRequest;
 import org.apache.sling.api.request.RequestParameter;
@@ -44,10 +45,12 @@ public final class ActionHelperImpl implements ActionHelper {
         final Collection<AssetModel> assets = new ArrayList<>();
 
         if (requestParameters != null) {
+            final ModelCache modelCache = request.adaptTo(ModelCache.class);
+
             for (final RequestParameter requestParameter : requestParameters) {
                 final Resource resource = request.getResourceResolver().getResource(requestParameter.getString());
                 if (resource != null) {
-                    final AssetModel asset = modelFactory.getModelFromWrappedRequest(request, resource, AssetModel.class);
+                    final AssetModel asset = modelCache != null ? modelCache.get(AssetModel.class, resource) : modelFactory.getModelFromWrappedRequest(request, resource, AssetModel.class);
 
                     if (asset != null) {
                         assets.add(asset);
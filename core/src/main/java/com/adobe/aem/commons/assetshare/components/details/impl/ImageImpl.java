@@ -21,17 +21,21 @@ package com.adobe.aem.commons.assetshare.components.details.impl;
 
 import com.adobe.aem.commons.assetshare.components.details.Image;
 import com.adobe.aem.commons.assetshare.content.AssetModel;
-import com.day.cq.dam.api.Rendition;
+import com.adobe.aem.commons.assetshare.content.impl.cache.RenditionManifest;
+import com.adobe.aem.commons.assetshare.content.impl.cache.RenditionManifestCache;
+import com.day.cq.dam.api.Asset;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.sling.api.SlingHttpServletRequest;
 import org.apache.sling.api.resource.ValueMap;
 import org.apache.sling.models.annotations.DefaultInjectionStrategy;
 import org.apache.sling.models.annotations.Model;
 import org.apache.sling.models.annotations.Required;
+import org.apache.sling.models.annotations.injectorspecific.OSGiService;
 import org.apache.sling.models.annotations.injectorspecific.Self;
 import org.apache.sling.models.annotations.injectorspecific.ValueMapValue;
 
 import javax.annotation.PostConstruct;
+import java.util.List;
 import java.util.regex.Pattern;
 
 @Model(
@@ -51,6 +55,10 @@ public class ImageImpl extends AbstractEmptyTextComponent implements Image {
     @Required
     private AssetModel asset;
 
+    @OSGiService
+    @Required
+    private RenditionManifestCache renditionManifestCache;
+
     @ValueMapValue
     private String computedProperty;
 
@@ -77,12 +85,13 @@ public class ImageImpl extends AbstractEmptyTextComponent implements Image {
             src = combinedProperties.get(computedProperty, String.class);
 
             if (StringUtils.isBlank(src) && StringUtils.isNotBlank(renditionRegex)) {
-                final Pattern pattern = Pattern.compile(renditionRegex);
+                final Asset damAsset = asset.getResource().adaptTo(Asset.class);
+
+                if (damAsset != null) {
+                    final List<RenditionManifest.Entry> renditions = renditionManifestCache.get(damAsset, request).find(Pattern.compile(renditionRegex));
 
-                for (final Rendition rendition : asset.getRenditions()) {
-                    if (pattern.matcher(rendition.getName()).matches()) {
-                        src = rendition.getPath();
-                        break;
+                    if (!renditions.isEmpty()) {
+                        src = renditions.get(0).getPath();
                     }
                 }
             }
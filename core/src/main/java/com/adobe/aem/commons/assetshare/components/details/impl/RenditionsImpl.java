@@ -22,9 +22,12 @@ package com.adobe.aem.commons.assetshare.components.details.impl;
 import com.adobe.aem.commons.assetshare.components.details.Renditions;
 import com.adobe.aem.commons.assetshare.content.AssetModel;
 import com.adobe.aem.commons.assetshare.content.Rendition;
+import com.adobe.aem.commons.assetshare.content.impl.cache.RenditionManifest;
+import com.adobe.aem.commons.assetshare.content.impl.cache.RenditionManifestCache;
 import com.adobe.aem.commons.assetshare.content.properties.impl.LicenseImpl;
 import com.adobe.cq.wcm.core.components.models.form.OptionItem;
 import com.adobe.cq.wcm.core.components.models.form.Options;
+import com.day.cq.dam.api.Asset;
 import com.day.cq.dam.commons.util.UIHelper;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.sling.api.SlingHttpServletRequest;
@@ -40,7 +43,6 @@ import javax.annotation.PostConstruct;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 @Model(
@@ -75,6 +77,10 @@ public class RenditionsImpl extends AbstractEmptyTextComponent implements Rendit
     @Required
     private MimeTypeService mimeTypeService;
 
+    @OSGiService
+    @Required
+    private RenditionManifestCache renditionManifestCache;
+
     private Collection<Rendition> renditions = null;
 
     @PostConstruct
@@ -100,20 +106,16 @@ public class RenditionsImpl extends AbstractEmptyTextComponent implements Rendit
     private Collection<Rendition> getRenditions(boolean includeAll) {
         if (renditions == null) {
             final List<Rendition> collectedRenditions = new ArrayList<>();
-            final List<com.day.cq.dam.api.Rendition> assetRenditions = asset.getRenditions();
+            final Asset damAsset = asset.getResource().adaptTo(Asset.class);
+            final RenditionManifest renditionManifest = damAsset != null ? renditionManifestCache.get(damAsset, request) : null;
+            final boolean licensed = StringUtils.isNotBlank(asset.getProperties().get(LicenseImpl.NAME, String.class));
 
             for (final OptionItem item : coreOptions.getItems()) {
-                final Pattern pattern = Pattern.compile(item.getValue());
                 boolean found = false;
 
-                for (final com.day.cq.dam.api.Rendition assetRendition : assetRenditions) {
-                    final Matcher matcher = pattern.matcher(assetRendition.getName());
-
-                    if (matcher.matches()) {
-                        collectedRenditions.add(new RenditionImpl(item.getText(),
-                                assetRendition,
-                                StringUtils.isNotBlank(asset.getProperties().get(LicenseImpl.NAME, String.class)),
-                                true));
+                if (renditionManifest != null) {
+                    for (final RenditionManifest.Entry assetRendition : renditionManifest.find(Pattern.compile(item.getValue()))) {
+                        collectedRenditions.add(new RenditionImpl(item.getText(), assetRendition, licensed, true));
                         found = true;
                     }
                 }
@@ -151,7 +153,7 @@ public class RenditionsImpl extends AbstractEmptyTextComponent implements Rendit
         private final boolean exists;
         private final boolean licensed;
 
-        public RenditionImpl(String label, com.day.cq.dam.api.Rendition assetRendition, boolean licensed, boolean exists) {
+        public RenditionImpl(String label, RenditionManifest.Entry assetRendition, boolean licensed, boolean exists) {
             this.label = label;
             this.size = UIHelper.getSizeLabel(assetRendition.getSize());
             this.mimeType = assetRendition.getMimeType();
@@ -21,15 +21,15 @@ package com.adobe.aem.commons.assetshare.components.details.impl;
 
 import com.adobe.aem.commons.assetshare.components.details.Tags;
 import com.adobe.aem.commons.assetshare.content.AssetModel;
+import com.adobe.aem.commons.assetshare.content.impl.cache.TagTitleCache;
 import com.adobe.aem.commons.assetshare.content.properties.impl.TagTitlesImpl;
-import com.day.cq.tagging.Tag;
-import com.day.cq.tagging.TagManager;
 import com.day.cq.wcm.api.Page;
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.sling.api.SlingHttpServletRequest;
 import org.apache.sling.models.annotations.DefaultInjectionStrategy;
 import org.apache.sling.models.annotations.Model;
 import org.apache.sling.models.annotations.Required;
+import org.apache.sling.models.annotations.injectorspecific.OSGiService;
 import org.apache.sling.models.annotations.injectorspecific.ScriptVariable;
 import org.apache.sling.models.annotations.injectorspecific.Self;
 import org.apache.sling.models.annotations.injectorspecific.ValueMapValue;
@@ -65,6 +65,10 @@ public class TagsImpl extends AbstractEmptyTextComponent implements Tags {
     @ScriptVariable
     private Page currentPage;
 
+    @OSGiService
+    @Required
+    private TagTitleCache tagTitleCache;
+
     private List<String> tagTitles;
 
     @Override
@@ -106,14 +110,13 @@ public class TagsImpl extends AbstractEmptyTextComponent implements Tags {
      */
     private Collection<String> getTagTitles(final Collection<String> tagValues) {
         final Locale locale = getLocale();
-        final TagManager tagManager = request.getResourceResolver().adaptTo(TagManager.class);
         final Collection<String> combinedTagTitles = new LinkedHashSet<>();
 
         for (final String tagId: tagValues) {
-            final Tag tag = tagManager.resolve(tagId);
+            final String tagTitle = tagTitleCache.getTitle(request.getResourceResolver(), tagId, locale);
 
-            if (tag != null) {
-                combinedTagTitles.add(tag.getTitle(locale));
+            if (tagTitle != null) {
+                combinedTagTitles.add(tagTitle);
             } else {
                 combinedTagTitles.add(tagId);
             }
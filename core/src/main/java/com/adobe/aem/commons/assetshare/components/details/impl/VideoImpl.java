@@ -1,5 +1,6 @@
 package com.adobe.aem.commons.assetshare.components.details.impl;
 
+import java.util.List;
 import java.util.regex.Pattern;
 
 import javax.annotation.PostConstruct;
@@ -10,13 +11,15 @@ import org.apache.sling.api.resource.ValueMap;
 import org.apache.sling.models.annotations.DefaultInjectionStrategy;
 import org.apache.sling.models.annotations.Model;
 import org.apache.sling.models.annotations.Required;
+import org.apache.sling.models.annotations.injectorspecific.OSGiService;
 import org.apache.sling.models.annotations.injectorspecific.Self;
 import org.apache.sling.models.annotations.injectorspecific.ValueMapValue;
 
 import com.adobe.aem.commons.assetshare.components.details.Video;
 import com.adobe.aem.commons.assetshare.content.AssetModel;
+import com.adobe.aem.commons.assetshare.content.impl.cache.RenditionManifest;
+import com.adobe.aem.commons.assetshare.content.impl.cache.RenditionManifestCache;
 import com.day.cq.dam.api.Asset;
-import com.day.cq.dam.api.Rendition;
 import com.day.cq.dam.commons.util.DamUtil;
 
 /**
@@ -33,10 +36,18 @@ public class VideoImpl extends AbstractEmptyTextComponent implements Video {
 
     protected static final String RESOURCE_TYPE = "asset-share-commons/components/details/video";
 
+    @Self
+    @Required
+    private SlingHttpServletRequest request;
+
     @Self
     @Required
     private AssetModel assetModel;
 
+    @OSGiService
+    @Required
+    private RenditionManifestCache renditionManifestCache;
+
     @ValueMapValue
     private String computedProperty;
 
@@ -79,13 +90,15 @@ public class VideoImpl extends AbstractEmptyTextComponent implements Video {
      * Method fetches the rendition path from regex
      */
     private void fetchSrcFromRegex() {
-        final Pattern pattern = Pattern.compile(renditionRegex);
-        for (final Rendition rendition : assetModel.getRenditions()) {
-            if (!"video/x-flv".equalsIgnoreCase(rendition.getMimeType())
-                    && pattern.matcher(rendition.getName()).matches()) {
-                src = rendition.getPath();
-                break;
-            }
+        final Asset asset = assetModel.getResource().adaptTo(Asset.class);
+        if (asset == null) {
+            return;
+        }
+
+        final List<RenditionManifest.Entry> renditions = renditionManifestCache.get(asset, request).find(Pattern.compile(renditionRegex),
+                rendition -> !"video/x-flv".equalsIgnoreCase(rendition.getMimeType()));
+        if (!renditions.isEmpty()) {
+            src = renditions.get(0).getPath();
         }
     }
 
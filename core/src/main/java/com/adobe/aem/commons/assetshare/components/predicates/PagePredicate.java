@@ -46,6 +46,34 @@ public interface PagePredicate extends Predicate {
 
     List<String> getPaths();
 
+    /**
+     * @return true if subsequent result pages should be queried using keyset (cursor) pagination rather than offset pagination.
+     */
+    default boolean isCursorPagination() {
+        return false;
+    }
+
+    /**
+     * @return true if the search should count the matches per value of the property and tags predicates, in the same execution as the search.
+     */
+    default boolean isFacetCounts() {
+        return false;
+    }
+
+    /**
+     * @return the time in milliseconds after which the search stops reading matches and returns the results collected so far, or 0 for no time budget.
+     */
+    default long getTimeBudget() {
+        return 0;
+    }
+
+    /**
+     * @return the maximum number of matches the search reads, or 0 for no read limit.
+     */
+    default long getReadLimit() {
+        return 0;
+    }
+
     PredicateGroup getPredicateGroup();
 
     PredicateGroup getPredicateGroup(ParamTypes... excludeParamTypes);
@@ -73,6 +73,10 @@ public class PagePredicateImpl extends AbstractPredicate implements PagePredicat
     private String PN_LIMIT = "limit";
     private String PN_PATHS = "paths";
     private String PN_SEARCH_PREDICATES = "searchPredicates";
+    private String PN_CURSOR_PAGINATION = "cursorPagination";
+    private String PN_FACET_COUNTS = "facetCounts";
+    private String PN_TIME_BUDGET = "timeBudget";
+    private String PN_READ_LIMIT = "readLimit";
 
     @Self
     @Required
@@ -181,6 +185,26 @@ public class PagePredicateImpl extends AbstractPredicate implements PagePredicat
         }
     }
 
+    @Override
+    public boolean isCursorPagination() {
+        return properties.get(PN_CURSOR_PAGINATION, false);
+    }
+
+    @Override
+    public boolean isFacetCounts() {
+        return properties.get(PN_FACET_COUNTS, false);
+    }
+
+    @Override
+    public long getTimeBudget() {
+        return Math.max(0, properties.get(PN_TIME_BUDGET, 0L));
+    }
+
+    @Override
+    public long getReadLimit() {
+        return Math.max(0, properties.get(PN_READ_LIMIT, 0L));
+    }
+
     @Override
     public PredicateGroup getPredicateGroup() {
         return getPredicateGroup(new ParamTypes[]{});
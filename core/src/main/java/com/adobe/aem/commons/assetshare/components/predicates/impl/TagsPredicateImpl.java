@@ -23,6 +23,7 @@ import com.adobe.aem.commons.assetshare.components.predicates.AbstractPredicate;
 import com.adobe.aem.commons.assetshare.components.predicates.TagsPredicate;
 import com.adobe.aem.commons.assetshare.components.predicates.impl.options.TagOptionItem;
 import com.adobe.aem.commons.assetshare.configuration.Config;
+import com.adobe.aem.commons.assetshare.content.impl.cache.TagTitleCache;
 import com.adobe.aem.commons.assetshare.search.impl.predicateevaluators.PropertyValuesPredicateEvaluator;
 import com.adobe.aem.commons.assetshare.util.PredicateUtil;
 import com.adobe.cq.commerce.common.ValueMapDecorator;
@@ -40,6 +41,7 @@ import org.apache.sling.models.annotations.Default;
 import org.apache.sling.models.annotations.DefaultInjectionStrategy;
 import org.apache.sling.models.annotations.Model;
 import org.apache.sling.models.annotations.Required;
+import org.apache.sling.models.annotations.injectorspecific.OSGiService;
 import org.apache.sling.models.annotations.injectorspecific.Self;
 import org.apache.sling.models.annotations.injectorspecific.ValueMapValue;
 
@@ -67,6 +69,10 @@ public class TagsPredicateImpl extends AbstractPredicate implements TagsPredicat
     @Required
     private Options coreOptions;
 
+    @OSGiService
+    @Required
+    private TagTitleCache tagTitleCache;
+
     @ValueMapValue(name = PropertyPredicateImpl.PN_TYPE)
     private String typeString;
 
@@ -147,7 +153,8 @@ public class TagsPredicateImpl extends AbstractPredicate implements TagsPredicat
             final Locale locale = request.adaptTo(Config.class).getLocale();
 
             for (final Tag tag : tags) {
-                items.add(new TagOptionItem(tag, locale, PredicateUtil.isOptionInInitialValues(tag.getTagID(), initialValues)));
+                final String title = tagTitleCache.getTitle(request.getResourceResolver(), tag.getTagID(), locale);
+                items.add(new TagOptionItem(tag, title, locale, PredicateUtil.isOptionInInitialValues(tag.getTagID(), initialValues)));
             }
         }
 
@@ -27,6 +27,7 @@ import java.util.Locale;
 public class TagOptionItem implements OptionItem {
     private Tag tag;
     private Locale locale;
+    private String text;
     private boolean selected;
 
     public TagOptionItem(Tag tag, Locale locale, boolean selected) {
@@ -35,6 +36,17 @@ public class TagOptionItem implements OptionItem {
         this.selected = selected;
     }
 
+    /**
+     * @param tag the tag.
+     * @param text the (localized) title of the tag; if null, the tag's title is used.
+     * @param locale the locale of the tag's title.
+     * @param selected true if the option is selected.
+     */
+    public TagOptionItem(Tag tag, String text, Locale locale, boolean selected) {
+        this(tag, locale, selected);
+        this.text = text;
+    }
+
     @Override
     public boolean isSelected() {
         return selected;
@@ -55,7 +67,9 @@ public class TagOptionItem implements OptionItem {
 
     @Override
     public String getText() {
-        if (tag != null) {
+        if (text != null) {
+            return text;
+        } else if (tag != null) {
             return tag.getTitle(locale);
         }
         return "";
@@ -32,5 +32,12 @@ public interface Statistics extends Component {
      * @return the time taken in milliseconds for this specific search. This is NOT an aggregate of all "loads" for this search.
      */
     long getTimeTaken();
+
+    /**
+     * @return true if the search was stopped by its time budget or read limit, and only partial results are available.
+     */
+    default boolean isPartial() {
+        return false;
+    }
 }
 
@@ -63,6 +63,11 @@ public class StatisticsImpl implements Statistics {
         return search.getResults().getTimeTaken();
     }
 
+    @Override
+    public boolean isPartial() {
+        return search.getResults().isPartial();
+    }
+
     @Override
     public boolean isReady() {
         return true;
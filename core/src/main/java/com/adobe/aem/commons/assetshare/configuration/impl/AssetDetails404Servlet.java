@@ -18,17 +18,18 @@
 
 package com.adobe.aem.commons.assetshare.configuration.impl;
 
+import com.adobe.aem.commons.assetshare.content.AssetResolver;
 import com.day.cq.dam.api.Asset;
 import com.day.cq.wcm.api.WCMMode;
 import org.apache.sling.api.SlingHttpServletRequest;
 import org.apache.sling.api.SlingHttpServletResponse;
-import org.apache.sling.api.request.RequestPathInfo;
 import org.apache.sling.api.resource.Resource;
 import org.apache.sling.api.resource.ResourceUtil;
 import org.apache.sling.api.servlets.OptingServlet;
 import org.apache.sling.api.servlets.SlingSafeMethodsServlet;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.ConfigurationPolicy;
+import org.osgi.service.component.annotations.Reference;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -48,6 +49,9 @@ import java.io.IOException;
 )
 public class AssetDetails404Servlet extends SlingSafeMethodsServlet implements OptingServlet {
 
+    @Reference
+    private transient AssetResolver assetResolver;
+
     @Override
     protected final void doGet(SlingHttpServletRequest request, SlingHttpServletResponse response)
             throws ServletException, IOException {
@@ -64,8 +68,7 @@ public class AssetDetails404Servlet extends SlingSafeMethodsServlet implements O
 
         // ONLY perform this on WCMModes disabled in case someone runs this on AEM Author as disabled.
         if(WCMMode.DISABLED.equals(wcmMode)) {
-            final RequestPathInfo requestPathInfo = request.getRequestPathInfo();
-            final Resource suffixResource = requestPathInfo.getSuffixResource();
+            final Resource suffixResource = assetResolver.resolveSuffixResource(request);
 
             // If the suffixResource cannot be resolved, then return a 404
             if (suffixResource == null || ResourceUtil.isNonExistingResource(suffixResource)) {
@@ -23,19 +23,44 @@ import com.adobe.aem.commons.assetshare.configuration.AssetDetailsResolver;
 import com.adobe.aem.commons.assetshare.configuration.AssetDetailsSelector;
 import com.adobe.aem.commons.assetshare.configuration.Config;
 import com.adobe.aem.commons.assetshare.content.AssetModel;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.sling.api.resource.ResourceUtil;
+import org.apache.sling.api.resource.observation.ExternalResourceChangeListener;
+import org.apache.sling.api.resource.observation.ResourceChange;
+import org.apache.sling.api.resource.observation.ResourceChangeListener;
+import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Modified;
 import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.component.annotations.ReferenceCardinality;
 import org.osgi.service.component.annotations.ReferencePolicy;
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.Designate;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Resolves the asset details page URL of assets via the registered AssetDetailsSelectors.
+ *
+ * Whether a selected asset details page exists is cached by its URL, as the selected URLs of a site's assets are typically only a handful of distinct pages; so, per asset, the details URL is the selector's string concatenation.
+ * The cached existence of a page is invalidated when the page, or one of its ancestors, is added, removed or moved.
+ *
+ * Existence is resolved under the session of the first caller and is shared with all users, so it is only cached if enabled; this must only be enabled if all users can read all asset details pages (ie. none are closed user groups).
+ */
 @Component(
+        service = {AssetDetailsResolver.class, ResourceChangeListener.class},
+        property = {
+                ResourceChangeListener.CHANGES + "=ADDED",
+                ResourceChangeListener.CHANGES + "=REMOVED"
+        },
         reference = {
                 @Reference(
                         name = "assetDetailSelector",
@@ -47,10 +72,21 @@ import java.util.concurrent.ConcurrentHashMap;
                 )
         }
 )
-public class AssetDetailsResolverImpl implements AssetDetailsResolver {
+@Designate(ocd = AssetDetailsResolverImpl.Cfg.class)
+public class AssetDetailsResolverImpl implements AssetDetailsResolver, ExternalResourceChangeListener {
+    private static final String DEFAULT_PATH = "/content";
+    private static final String DAM_PATH = "/content/dam/";
+    private static final String JCR_CONTENT = "/jcr:content";
+    private static final long DEFAULT_MAX_URLS = 1000;
+    private static final long DEFAULT_TTL = 3600;
 
     private Map<String, AssetDetailsSelector> assetDetailsSelectors = new ConcurrentHashMap<String, AssetDetailsSelector>();
 
+    // Asset details page URL -> whether the page exists
+    private Cache<String, Boolean> existingUrls;
+
+    private Cfg cfg;
+
     public String getUrl(final Config config, final AssetModel asset) {
         String url = null;
 
@@ -61,14 +97,43 @@ public class AssetDetailsResolverImpl implements AssetDetailsResolver {
             }
         }
 
-        if (StringUtils.isBlank(url) ||
-                ResourceUtil.isNonExistingResource(config.getResourceResolver().resolve(url))) {
+        if (StringUtils.isBlank(url) || !exists(config, url)) {
             url = config.getAssetDetailsUrl();
         }
 
         return url;
     }
 
+    private boolean exists(final Config config, final String url) {
+        if (!cfg.enabled()) {
+            return !ResourceUtil.isNonExistingResource(config.getResourceResolver().resolve(url));
+        }
+
+        return existingUrls.asMap().computeIfAbsent(url, key -> !ResourceUtil.isNonExistingResource(config.getResourceResolver().resolve(key)));
+    }
+
+    @Override
+    public void onChange(final List<ResourceChange> changes) {
+        if (existingUrls.size() == 0) {
+            return;
+        }
+
+        for (final ResourceChange change : changes) {
+            final String path = change.getPath();
+
+            if (StringUtils.startsWith(path, DAM_PATH) || StringUtils.contains(path, JCR_CONTENT)) {
+                // Only the addition, removal or move of pages changes whether they exist
+                continue;
+            }
+
+            final String prefix = StringUtils.removeEnd(path, "/") + "/";
+            existingUrls.asMap().keySet().removeIf(url -> {
+                final String pagePath = StringUtils.substringBefore(url, ".");
+                return pagePath.equals(path) || StringUtils.startsWith(pagePath, prefix);
+            });
+        }
+    }
+
     public String getFullUrl(final Config config, final AssetModel asset) {
         String fullUrl = getUrl(config, asset);
 
@@ -90,10 +155,48 @@ public class AssetDetailsResolverImpl implements AssetDetailsResolver {
         }
     }
 
+    @Activate
+    @Modified
+    protected void activate(final Cfg cfg) {
+        this.cfg = cfg;
+        this.existingUrls = CacheBuilder.newBuilder()
+                .maximumSize(cfg.max_urls())
+                .expireAfterWrite(cfg.ttl(), TimeUnit.SECONDS)
+                .build();
+    }
+
     protected final void unbindAssetDetailsSelector(final AssetDetailsSelector service, final Map<Object, Object> props) {
         final String type = service.getClass().getName();
         if (type != null) {
             this.assetDetailsSelectors.remove(type);
         }
     }
-}
\ No newline at end of file
+
+    @ObjectClassDefinition(name = "Asset Share Commons - Asset Details Resolver")
+    public @interface Cfg {
+        @AttributeDefinition(
+                name = "Cache page existence",
+                description = "Cache whether the asset details pages selected for assets exist, rather than resolving the selected page for each asset. Existence is resolved under the session of the first caller, and served to all users; "
+                        + "only enable this if all users can read all asset details pages, as users are otherwise linked to pages they cannot read, or to the default page where they could read the selected one."
+        )
+        boolean enabled() default false;
+
+        @AttributeDefinition(
+                name = "Max URLs",
+                description = "The maximum number of asset details page URLs to cache the existence of."
+        )
+        long max_urls() default DEFAULT_MAX_URLS;
+
+        @AttributeDefinition(
+                name = "Time-to-live",
+                description = "The time in seconds the existence of an asset details page is cached for."
+        )
+        long ttl() default DEFAULT_TTL;
+
+        @AttributeDefinition(
+                name = "Invalidation paths",
+                description = "The addition, removal or move of pages under these paths invalidates the cached existence of asset details pages."
+        )
+        String[] resource_paths() default {DEFAULT_PATH};
+    }
+}
@@ -21,9 +21,9 @@ package com.adobe.aem.commons.assetshare.configuration.impl;
 
 import com.adobe.aem.commons.assetshare.components.actions.share.ShareService;
 import com.adobe.aem.commons.assetshare.configuration.Config;
-import com.adobe.aem.commons.assetshare.configuration.impl.selectors.AlwaysUseDefaultSelectorImpl;
 import com.adobe.aem.commons.assetshare.content.AssetModel;
 import com.adobe.aem.commons.assetshare.util.ForcedInheritanceValueMapWrapper;
+import com.adobe.aem.commons.assetshare.util.ModelCache;
 import com.day.cq.commons.inherit.HierarchyNodeInheritanceValueMap;
 import com.day.cq.dam.entitlement.api.EntitlementConstants;
 import com.day.cq.wcm.api.Page;
@@ -59,30 +59,30 @@ public class ConfigImpl implements Config {
 
     public static String NODE_NAME = "config";
 
-    private static final String HTML_EXTENSION = ".html";
+    static final String HTML_EXTENSION = ".html";
     private static final String[] rootResourceTypes = new String[]{"asset-share-commons/components/structure/search-page"};
 
     private static final String SCENE7_FEATURE_FLAG = "com.adobe.dam.asset.scene7.feature.flag";
 
     // Actions
-    private static final String DEFAULT_VIEW_SELECTOR = "partial";
-    private static final String PN_VIEW_SELECTOR = "config/actions/viewSelector";
+    static final String DEFAULT_VIEW_SELECTOR = "partial";
+    static final String PN_VIEW_SELECTOR = "config/actions/viewSelector";
 
-    private static final String PN_LICENSE_ENABLED = "config/actions/license/enabled";
-    private static final String PN_LICENSE_AGREEMENT_VIEW_PATH = "config/actions/license/path";
+    static final String PN_LICENSE_ENABLED = "config/actions/license/enabled";
+    static final String PN_LICENSE_AGREEMENT_VIEW_PATH = "config/actions/license/path";
 
-    private static final String PN_DOWNLOAD_ENABLED = "config/actions/download/enabled";
-    private static final String PN_DOWNLOAD_VIEW_PATH = "config/actions/download/path";
+    static final String PN_DOWNLOAD_ENABLED = "config/actions/download/enabled";
+    static final String PN_DOWNLOAD_VIEW_PATH = "config/actions/download/path";
 
-    private static final String PN_CART_ENABLED = "config/actions/cart/enabled";
-    private static final String PN_CART_VIEW_PATH = "config/actions/cart/path";
+    static final String PN_CART_ENABLED = "config/actions/cart/enabled";
+    static final String PN_CART_VIEW_PATH = "config/actions/cart/path";
 
-    private static final String PN_SHARE_ENABLED = "config/actions/share/enabled";
-    private static final String PN_SHARE_VIEW_PATH = "config/actions/share/path";
+    static final String PN_SHARE_ENABLED = "config/actions/share/enabled";
+    static final String PN_SHARE_VIEW_PATH = "config/actions/share/path";
 
     // Asset Details
-    private static final String PN_DEFAULT_ASSET_DETAILS_PATH = "config/asset-details/defaultPath";
-    private static final String PN_ASSET_DETAILS_SELECTOR = "config/asset-details/selector";
+    static final String PN_DEFAULT_ASSET_DETAILS_PATH = "config/asset-details/defaultPath";
+    static final String PN_ASSET_DETAILS_SELECTOR = "config/asset-details/selector";
     public static final String PN_PLACEHOLDER_ASSET_PATH = "config/asset-details/placeholderPath";
     public static final String PN_ASSET_REFERENCE_BY_ID = "config/asset-details/assetReferenceById";
     public static final String DEFAULT_PLACEHOLDER_ASSET_PATH = "/apps/asset-share-commons/resources/placeholder.png";
@@ -106,13 +106,15 @@ public class ConfigImpl implements Config {
     @Required
     private Features features;
 
+    @OSGiService
+    @Optional
+    private ConfigSnapshotCache configSnapshotCache;
+
     private Page currentPage;
 
     private ValueMap properties;
 
-    private String viewSelector;
-
-    private String rootPath;
+    private ConfigSnapshot snapshot;
 
     private Boolean dynamicMediaEnabled;
 
@@ -128,9 +130,12 @@ public class ConfigImpl implements Config {
         final PageManager pageManager = pageResource.getResourceResolver().adaptTo(PageManager.class);
         currentPage = pageManager.getContainingPage(pageResource);
 
-        properties = new ForcedInheritanceValueMapWrapper(new HierarchyNodeInheritanceValueMap(currentPage.getContentResource()));
-        viewSelector = properties.get(PN_VIEW_SELECTOR, DEFAULT_VIEW_SELECTOR);
-        rootPath = getRootPath(currentPage);
+        // The configuration values only depend on the page, so they are resolved once per page rather than once per adaptation
+        if (configSnapshotCache != null) {
+            snapshot = configSnapshotCache.get(currentPage.getPath(), () -> new ConfigSnapshot(getProperties(), getRootPath(currentPage)));
+        } else {
+            snapshot = new ConfigSnapshot(getProperties(), getRootPath(currentPage));
+        }
     }
 
     @Override
@@ -145,6 +150,10 @@ public class ConfigImpl implements Config {
 
     @Override
     public ValueMap getProperties() {
+        if (properties == null) {
+            properties = new ForcedInheritanceValueMapWrapper(new HierarchyNodeInheritanceValueMap(currentPage.getContentResource()));
+        }
+
         return properties;
     }
 
@@ -159,11 +168,13 @@ public class ConfigImpl implements Config {
 
     @Override
     public AssetModel getPlaceholderAsset() {
-        final String path = properties.get(PN_PLACEHOLDER_ASSET_PATH, DEFAULT_PLACEHOLDER_ASSET_PATH);
+        final String path = snapshot.getPlaceholderAssetPath();
 
         final Resource placeholderResource = requestResource.getResourceResolver().getResource(path);
         if (placeholderResource != null) {
-            return modelFactory.getModelFromWrappedRequest(request, placeholderResource, AssetModel.class);
+            // The placeholder is used by each asset model of the request in authoring, so it is only adapted once per request
+            final ModelCache modelCache = request.adaptTo(ModelCache.class);
+            return modelCache != null ? modelCache.get(AssetModel.class, placeholderResource) : modelFactory.getModelFromWrappedRequest(request, placeholderResource, AssetModel.class);
         } else {
             return null;
         }
@@ -171,58 +182,58 @@ public class ConfigImpl implements Config {
 
     @Override
     public String getDownloadActionUrl() {
-        return properties.get(PN_DOWNLOAD_VIEW_PATH, rootPath + "/actions/download") + "." + viewSelector + HTML_EXTENSION;
+        return snapshot.getDownloadActionUrl();
     }
 
     @Override
     public String getLicenseActionUrl() {
-        return properties.get(PN_LICENSE_AGREEMENT_VIEW_PATH, rootPath + "/actions/license") + "." + viewSelector + HTML_EXTENSION;
+        return snapshot.getLicenseActionUrl();
     }
 
     @Override
     public String getShareActionUrl() {
-        return properties.get(PN_SHARE_VIEW_PATH, rootPath + "/actions/share") + "." + viewSelector + HTML_EXTENSION;
+        return snapshot.getShareActionUrl();
     }
 
     @Override
     public String getCartActionUrl() {
-        return properties.get(PN_CART_VIEW_PATH, rootPath + "/actions/cart") + "." + viewSelector + HTML_EXTENSION;
+        return snapshot.getCartActionUrl();
     }
 
     @Override
     public boolean isShareEnabled() {
-        return shareService != null && properties.get(PN_SHARE_ENABLED, false);
+        return shareService != null && snapshot.isShareEnabled();
     }
 
     @Override
     public boolean isDownloadEnabled() {
-        return properties.get(PN_DOWNLOAD_ENABLED, false);
+        return snapshot.isDownloadEnabled();
     }
 
     @Override
     public boolean isCartEnabled() {
-        return properties.get(PN_CART_ENABLED, false);
+        return snapshot.isCartEnabled();
     }
 
     @Override
     public boolean isLicenseEnabled() {
-        return properties.get(PN_LICENSE_ENABLED, false);
+        return snapshot.isLicenseEnabled();
     }
 
     @Override
     public String getAssetDetailsSelector() {
-        return properties.get(PN_ASSET_DETAILS_SELECTOR, AlwaysUseDefaultSelectorImpl.ID);
+        return snapshot.getAssetDetailsSelector();
     }
 
     @Override
     public boolean getAssetDetailReferenceById()  {
-        return properties.get(PN_ASSET_REFERENCE_BY_ID, false);
+        return snapshot.isAssetDetailReferenceById();
     }
 
 
     @Override
     public String getAssetDetailsPath() {
-        return properties.get(PN_DEFAULT_ASSET_DETAILS_PATH, rootPath + "/details");
+        return snapshot.getAssetDetailsPath();
     }
 
     @Override
@@ -233,7 +244,7 @@ public class ConfigImpl implements Config {
 
     @Override
     public String getRootPath() {
-        return getRootPath(currentPage);
+        return snapshot.getRootPath();
     }
 
     @Override
@@ -0,0 +1,139 @@
+/*
+ * Asset Share Commons
+ *
+ * Copyright (C) 2018 Adobe
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.adobe.aem.commons.assetshare.configuration.impl;
+
+import com.adobe.aem.commons.assetshare.configuration.impl.selectors.AlwaysUseDefaultSelectorImpl;
+import org.apache.sling.api.resource.ValueMap;
+
+/**
+ * An immutable snapshot of the configuration values of an Asset Share Commons page, as resolved via the page's inherited configuration.
+ *
+ * Snapshots are shared across requests, so they only hold values, and no references to resources or resource resolvers.
+ */
+public final class ConfigSnapshot {
+    private final String rootPath;
+    private final String viewSelector;
+
+    private final boolean licenseEnabled;
+    private final String licenseActionUrl;
+
+    private final boolean downloadEnabled;
+    private final String downloadActionUrl;
+
+    private final boolean cartEnabled;
+    private final String cartActionUrl;
+
+    private final boolean shareEnabled;
+    private final String shareActionUrl;
+
+    private final String assetDetailsSelector;
+    private final boolean assetDetailReferenceById;
+    private final String assetDetailsPath;
+    private final String placeholderAssetPath;
+
+    /**
+     * @param properties the page's inherited configuration properties.
+     * @param rootPath the path of the page's Asset Share Commons root page.
+     */
+    ConfigSnapshot(final ValueMap properties, final String rootPath) {
+        this.rootPath = rootPath;
+        this.viewSelector = properties.get(ConfigImpl.PN_VIEW_SELECTOR, ConfigImpl.DEFAULT_VIEW_SELECTOR);
+
+        this.licenseEnabled = properties.get(ConfigImpl.PN_LICENSE_ENABLED, false);
+        this.licenseActionUrl = getActionUrl(properties, ConfigImpl.PN_LICENSE_AGREEMENT_VIEW_PATH, "/actions/license");
+
+        this.downloadEnabled = properties.get(ConfigImpl.PN_DOWNLOAD_ENABLED, false);
+        this.downloadActionUrl = getActionUrl(properties, ConfigImpl.PN_DOWNLOAD_VIEW_PATH, "/actions/download");
+
+        this.cartEnabled = properties.get(ConfigImpl.PN_CART_ENABLED, false);
+        this.cartActionUrl = getActionUrl(properties, ConfigImpl.PN_CART_VIEW_PATH, "/actions/cart");
+
+        this.shareEnabled = properties.get(ConfigImpl.PN_SHARE_ENABLED, false);
+        this.shareActionUrl = getActionUrl(properties, ConfigImpl.PN_SHARE_VIEW_PATH, "/actions/share");
+
+        this.assetDetailsSelector = properties.get(ConfigImpl.PN_ASSET_DETAILS_SELECTOR, AlwaysUseDefaultSelectorImpl.ID);
+        this.assetDetailReferenceById = properties.get(ConfigImpl.PN_ASSET_REFERENCE_BY_ID, false);
+        this.assetDetailsPath = properties.get(ConfigImpl.PN_DEFAULT_ASSET_DETAILS_PATH, rootPath + "/details");
+        this.placeholderAssetPath = properties.get(ConfigImpl.PN_PLACEHOLDER_ASSET_PATH, ConfigImpl.DEFAULT_PLACEHOLDER_ASSET_PATH);
+    }
+
+    private String getActionUrl(final ValueMap properties, final String propertyName, final String defaultRelativePath) {
+        return properties.get(propertyName, rootPath + defaultRelativePath) + "." + viewSelector + ConfigImpl.HTML_EXTENSION;
+    }
+
+    public String getRootPath() {
+        return rootPath;
+    }
+
+    /**
+     * @return true if the page's root page was found; else the root path fell back to "/", ie. as the resolving user could not read the root page.
+     */
+    public boolean isRootResolved() {
+        return !"/".equals(rootPath);
+    }
+
+    public boolean isLicenseEnabled() {
+        return licenseEnabled;
+    }
+
+    public String getLicenseActionUrl() {
+        return licenseActionUrl;
+    }
+
+    public boolean isDownloadEnabled() {
+        return downloadEnabled;
+    }
+
+    public String getDownloadActionUrl() {
+        return downloadActionUrl;
+    }
+
+    public boolean isCartEnabled() {
+        return cartEnabled;
+    }
+
+    public String getCartActionUrl() {
+        return cartActionUrl;
+    }
+
+    public boolean isShareEnabled() {
+        return shareEnabled;
+    }
+
+    public String getShareActionUrl() {
+        return shareActionUrl;
+    }
+
+    public String getAssetDetailsSelector() {
+        return assetDetailsSelector;
+    }
+
+    public boolean isAssetDetailReferenceById() {
+        return assetDetailReferenceById;
+    }
+
+    public String getAssetDetailsPath() {
+        return assetDetailsPath;
+    }
+
+    public String getPlaceholderAssetPath() {
+        return placeholderAssetPath;
+    }
+}
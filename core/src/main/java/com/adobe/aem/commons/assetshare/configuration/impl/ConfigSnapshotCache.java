@@ -0,0 +1,37 @@
+/*
+ * Asset Share Commons
+ *
+ * Copyright (C) 2018 Adobe
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.adobe.aem.commons.assetshare.configuration.impl;
+
+import java.util.function.Supplier;
+
+/**
+ * A node-wide cache of the configuration snapshots of Asset Share Commons pages, shared across requests.
+ */
+public interface ConfigSnapshotCache {
+    /**
+     * Gets the configuration snapshot of the page from the cache, creating and caching it if it is not cached.
+     * Snapshots whose root page could not be found are not cached, as that may only be the case for the user that created it.
+     *
+     * @param pagePath the path of the page.
+     * @param snapshot creates the page's configuration snapshot if it is not cached.
+     * @return the configuration snapshot of the page.
+     */
+    ConfigSnapshot get(String pagePath, Supplier<ConfigSnapshot> snapshot);
+}
@@ -0,0 +1,166 @@
+/*
+ * Asset Share Commons
+ *
+ * Copyright (C) 2018 Adobe
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.adobe.aem.commons.assetshare.configuration.impl;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.sling.api.resource.observation.ExternalResourceChangeListener;
+import org.apache.sling.api.resource.observation.ResourceChange;
+import org.apache.sling.api.resource.observation.ResourceChangeListener;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Modified;
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.Designate;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Caches the configuration snapshot of each Asset Share Commons page, so the inherited configuration and the root page are only resolved once per page, rather than each time Config is adapted.
+ *
+ * Snapshots are created under the session of the first caller and are shared with all users; as a user that cannot read the root page would resolve "/" as the root path, such snapshots are not cached.
+ *
+ * As configuration is inherited, a change to a page's jcr:content/config (or to its jcr:content, which determines whether it is a root page), or the addition, removal or move of a page, invalidates the snapshots of the page and all the pages beneath it.
+ */
+@Component(
+        service = {ConfigSnapshotCache.class, ResourceChangeListener.class},
+        property = {
+                ResourceChangeListener.CHANGES + "=ADDED",
+                ResourceChangeListener.CHANGES + "=CHANGED",
+                ResourceChangeListener.CHANGES + "=REMOVED"
+        }
+)
+@Designate(ocd = ConfigSnapshotCacheImpl.Cfg.class)
+public class ConfigSnapshotCacheImpl implements ConfigSnapshotCache, ExternalResourceChangeListener {
+    private static final String DEFAULT_PATH = "/content";
+    private static final String DAM_PATH = "/content/dam/";
+    private static final String JCR_CONTENT = "/jcr:content";
+    private static final String CONFIG = JCR_CONTENT + "/" + ConfigImpl.NODE_NAME;
+    private static final long DEFAULT_MAX_PAGES = 10000;
+    private static final long DEFAULT_TTL = 3600;
+
+    // Page path -> configuration snapshot
+    private Cache<String, ConfigSnapshot> cache;
+
+    private Cfg cfg;
+
+    @Override
+    public ConfigSnapshot get(final String pagePath, final Supplier<ConfigSnapshot> snapshot) {
+        if (!cfg.enabled()) {
+            return snapshot.get();
+        }
+
+        final ConfigSnapshot cachedSnapshot = cache.getIfPresent(pagePath);
+
+        if (cachedSnapshot != null) {
+            return cachedSnapshot;
+        }
+
+        final ConfigSnapshot newSnapshot = snapshot.get();
+
+        if (newSnapshot.isRootResolved()) {
+            cache.put(pagePath, newSnapshot);
+        }
+
+        return newSnapshot;
+    }
+
+    @Override
+    public void onChange(final List<ResourceChange> changes) {
+        if (cache.size() == 0) {
+            return;
+        }
+
+        for (final ResourceChange change : changes) {
+            final String pagePath = getPagePath(change.getPath());
+
+            if (pagePath != null) {
+                final String prefix = StringUtils.removeEnd(pagePath, "/") + "/";
+                cache.asMap().keySet().removeIf(key -> key.equals(pagePath) || StringUtils.startsWith(key, prefix));
+            }
+        }
+    }
+
+    /**
+     * @param path the changed path.
+     * @return the path of the page whose configuration snapshot (and whose descendants' snapshots) the change affects, or null if it does not affect any.
+     */
+    private String getPagePath(final String path) {
+        if (StringUtils.startsWith(path, DAM_PATH)) {
+            return null;
+        } else if (!StringUtils.contains(path, JCR_CONTENT)) {
+            // A page was added, removed or moved
+            return path;
+        }
+
+        final String pagePath = StringUtils.substringBefore(path, JCR_CONTENT);
+        final String contentPath = StringUtils.removeStart(path, pagePath);
+
+        if (JCR_CONTENT.equals(contentPath)
+                || CONFIG.equals(contentPath)
+                || StringUtils.startsWith(contentPath, CONFIG + "/")) {
+            return pagePath;
+        }
+
+        // Changes to the components of a page do not affect its configuration
+        return null;
+    }
+
+    @Activate
+    @Modified
+    protected void activate(final Cfg cfg) {
+        this.cfg = cfg;
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(cfg.max_pages())
+                .expireAfterWrite(cfg.ttl(), TimeUnit.SECONDS)
+                .build();
+    }
+
+    @ObjectClassDefinition(name = "Asset Share Commons - Config Snapshot Cache")
+    public @interface Cfg {
+        @AttributeDefinition(
+                name = "Enabled",
+                description = "Cache the resolved configuration of Asset Share Commons pages across requests."
+        )
+        boolean enabled() default true;
+
+        @AttributeDefinition(
+                name = "Max pages",
+                description = "The maximum number of pages to cache the resolved configuration of."
+        )
+        long max_pages() default DEFAULT_MAX_PAGES;
+
+        @AttributeDefinition(
+                name = "Time-to-live",
+                description = "The time in seconds the resolved configuration of a page is cached for."
+        )
+        long ttl() default DEFAULT_TTL;
+
+        @AttributeDefinition(
+                name = "Invalidation paths",
+                description = "Changes to the configuration of pages under these paths invalidate their cached configuration."
+        )
+        String[] resource_paths() default {DEFAULT_PATH};
+    }
+}
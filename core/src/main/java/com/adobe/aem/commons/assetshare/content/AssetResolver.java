@@ -27,4 +27,10 @@ public interface AssetResolver {
     Asset resolveAsset(SlingHttpServletRequest request);
 
     Asset resolveAsset(Resource resource);
+
+    /**
+     * @param request the request.
+     * @return the resource addressed by the request's suffix, or null if the suffix does not address a resource.
+     */
+    default Resource resolveSuffixResource(SlingHttpServletRequest request) { return request.getRequestPathInfo().getSuffixResource(); }
 }
@@ -21,7 +21,7 @@ package com.adobe.aem.commons.assetshare.content.impl;
 
 import com.adobe.aem.commons.assetshare.content.AssetModel;
 import com.adobe.aem.commons.assetshare.content.AssetResolver;
-import com.adobe.aem.commons.assetshare.content.properties.ComputedProperty;
+import com.adobe.aem.commons.assetshare.content.impl.cache.ComputedPropertyCache;
 import com.adobe.aem.commons.assetshare.content.properties.impl.TitleImpl;
 import com.adobe.cq.commerce.common.ValueMapDecorator;
 import com.day.cq.dam.api.Asset;
@@ -30,6 +30,7 @@ import org.apache.sling.api.SlingHttpServletRequest;
 import org.apache.sling.api.resource.Resource;
 import org.apache.sling.api.resource.ValueMap;
 import org.apache.sling.models.annotations.Model;
+import org.apache.sling.models.annotations.Optional;
 import org.apache.sling.models.annotations.Required;
 import org.apache.sling.models.annotations.injectorspecific.OSGiService;
 import org.apache.sling.models.annotations.injectorspecific.Self;
@@ -38,15 +39,18 @@ import org.slf4j.LoggerFactory;
 
 import javax.annotation.PostConstruct;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 @Model(
         adaptables = {SlingHttpServletRequest.class},
         adapters = {AssetModel.class}
 )
 public class AssetModelImpl implements AssetModel {
+    private static final String REQUEST_ATTR_ASSET_MODELS = AssetModelImpl.class.getName() + "_assetModels";
 
     @Self
     @Required
@@ -54,19 +58,32 @@ public class AssetModelImpl implements AssetModel {
 
     @OSGiService
     @Required
-    private List<ComputedProperty> computedProperties;
+    private ComputedPropertyRegistry computedPropertyRegistry;
 
     @OSGiService
     @Required
     private AssetResolver assetResolver;
 
+    @OSGiService
+    @Optional
+    private ComputedPropertyCache computedPropertyCache;
+
+    @OSGiService
+    @Optional
+    private ComputedPropertyMetrics computedPropertyMetrics;
+
     private Resource resource;
 
     private ValueMap properties;
 
+    private List<Rendition> renditions;
+
     // This must be populated in init(); if it cannot be an exception is thrown.
     private Asset asset;
 
+    // The first AssetModel of the asset adapted by this request, whose properties and renditions this model shares; null if this is the first.
+    private AssetModelImpl sharedModel;
+
     @PostConstruct
     public void init() {
         if (request != null) {
@@ -75,11 +92,30 @@ public class AssetModelImpl implements AssetModel {
 
         if (asset != null) {
             resource = asset.adaptTo(Resource.class);
+            // All the components of the request that adapt the same asset (ie. on the asset details page) share its computed property values
+            sharedModel = getAssetModels(request).putIfAbsent(asset.getPath(), this);
+
+            if (sharedModel == null) {
+                // Computed properties are computed for all the assets adapted by the request (ie. a page of results) at once
+                ComputedPropertyBatch.add(request, asset);
+            }
         } else {
             throw new IllegalArgumentException("Unable to to construct an AssetModel from the provided adaptables.");
         }
     }
 
+    @SuppressWarnings("unchecked")
+    private static Map<String, AssetModelImpl> getAssetModels(final SlingHttpServletRequest request) {
+        Map<String, AssetModelImpl> assetModels = (Map<String, AssetModelImpl>) request.getAttribute(REQUEST_ATTR_ASSET_MODELS);
+
+        if (assetModels == null) {
+            assetModels = new HashMap<>();
+            request.setAttribute(REQUEST_ATTR_ASSET_MODELS, assetModels);
+        }
+
+        return assetModels;
+    }
+
     public Resource getResource() {
         return resource;
     }
@@ -100,12 +136,23 @@ public class AssetModelImpl implements AssetModel {
         return getProperties().get(TitleImpl.NAME, String.class);
     }
 
+    /**
+     * The renditions are listed on the first call; the list is retained for the life of this model.
+     *
+     * @return an unmodifiable list of the asset's renditions.
+     */
     public List<Rendition> getRenditions() {
-        final List<Rendition> renditions = new ArrayList<Rendition>();
-        final Iterator<? extends Rendition> itr = asset.listRenditions();
+        if (sharedModel != null) {
+            return sharedModel.getRenditions();
+        } else if (renditions == null) {
+            final List<Rendition> listedRenditions = new ArrayList<Rendition>();
+            final Iterator<? extends Rendition> itr = asset.listRenditions();
+
+            while (itr.hasNext()) {
+                listedRenditions.add(itr.next());
+            }
 
-        while (itr.hasNext()) {
-            renditions.add(itr.next());
+            renditions = Collections.unmodifiableList(listedRenditions);
         }
 
         return renditions;
@@ -113,9 +160,11 @@ public class AssetModelImpl implements AssetModel {
 
     @Override
     public ValueMap getProperties() {
-        if (properties == null) {
+        if (sharedModel != null) {
+            return sharedModel.getProperties();
+        } else if (properties == null) {
             if (asset != null) {
-                properties = new ValueMapDecorator(new CombinedProperties(computedProperties, request, asset));
+                properties = new ValueMapDecorator(new CombinedProperties(computedPropertyRegistry, computedPropertyCache, computedPropertyMetrics, request, asset));
             } else {
                 properties = new ValueMapDecorator(new HashMap<>());
             }
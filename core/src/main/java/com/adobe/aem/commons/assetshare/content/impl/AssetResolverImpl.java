@@ -22,6 +22,7 @@ package com.adobe.aem.commons.assetshare.content.impl;
 import com.adobe.aem.commons.assetshare.configuration.Config;
 import com.adobe.aem.commons.assetshare.content.AssetModel;
 import com.adobe.aem.commons.assetshare.content.AssetResolver;
+import com.adobe.aem.commons.assetshare.content.impl.cache.AssetIdIndex;
 import com.day.cq.dam.api.Asset;
 import com.day.cq.dam.api.DamConstants;
 import com.day.cq.dam.commons.util.DamUtil;
@@ -30,25 +31,36 @@ import org.apache.commons.lang3.StringUtils;
 import org.apache.sling.api.SlingHttpServletRequest;
 import org.apache.sling.api.resource.Resource;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.jcr.RepositoryException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
 
 @Component
 public class AssetResolverImpl implements AssetResolver {
     private static final Logger log = LoggerFactory.getLogger(AssetResolverImpl.class);
 
+    private static final String REQUEST_ATTR_SUFFIX_RESOURCES = AssetResolverImpl.class.getName() + "_suffixResources";
+    private static final String REQUEST_ATTR_SUFFIX_ASSET_IDS = AssetResolverImpl.class.getName() + "_suffixAssetIds";
+
+    @Reference
+    private AssetIdIndex assetIdIndex;
+
     public Asset resolveAsset(final SlingHttpServletRequest request) {
         Asset asset = null;
 
         final String suffix = request.getRequestPathInfo().getSuffix();
-        final Resource suffixResource = request.getRequestPathInfo().getSuffixResource();
+        final Resource suffixResource = resolveSuffixResource(request);
 
         if (suffixResource != null) {
             asset = getAssetByPath(suffixResource);
         } else if (StringUtils.isNotBlank(suffix) && !StringUtils.startsWith(suffix, DamConstants.MOUNTPOINT_ASSETS)) {
-            asset = getAssetById(request, suffix);
+            final Map<String, Optional<Asset>> suffixAssetIds = getRequestMap(request, REQUEST_ATTR_SUFFIX_ASSET_IDS);
+            asset = suffixAssetIds.computeIfAbsent(suffix, key -> Optional.ofNullable(getAssetById(request, key))).orElse(null);
         }
 
         if (asset == null) {
@@ -69,6 +81,37 @@ public class AssetResolverImpl implements AssetResolver {
         return asset;
     }
 
+    /**
+     * The suffix is resolved once per request (including the requests of included components, which share its attributes), so the asset details page's components, and its 404 handling, do not each resolve the suffix.
+     *
+     * @param request the request.
+     * @return the resource addressed by the request's suffix, or null if the suffix does not address a resource.
+     */
+    @Override
+    public Resource resolveSuffixResource(final SlingHttpServletRequest request) {
+        final String suffix = request.getRequestPathInfo().getSuffix();
+
+        if (StringUtils.isBlank(suffix)) {
+            return null;
+        }
+
+        final Map<String, Optional<Resource>> suffixResources = getRequestMap(request, REQUEST_ATTR_SUFFIX_RESOURCES);
+
+        return suffixResources.computeIfAbsent(suffix, key -> Optional.ofNullable(request.getRequestPathInfo().getSuffixResource())).orElse(null);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Map<String, T> getRequestMap(final SlingHttpServletRequest request, final String attributeName) {
+        Map<String, T> map = (Map<String, T>) request.getAttribute(attributeName);
+
+        if (map == null) {
+            map = new HashMap<>();
+            request.setAttribute(attributeName, map);
+        }
+
+        return map;
+    }
+
     private Asset getAssetByPath(final Resource suffixResource) {
         return suffixResource.adaptTo(Asset.class);
     }
@@ -77,8 +120,23 @@ public class AssetResolverImpl implements AssetResolver {
         final String id = StringUtils.substringBefore(StringUtils.removeStart(suffix, "/"), ".");
 
         if (StringUtils.isNotBlank(id)) {
+            // The indexed path is resolved via the request's resource resolver, so access control applies; and verified, as the asset may have since moved
+            final String indexedPath = assetIdIndex.getPath(id);
+            final Resource indexedResource = indexedPath != null ? request.getResourceResolver().getResource(indexedPath) : null;
+            final Asset indexedAsset = indexedResource != null ? indexedResource.adaptTo(Asset.class) : null;
+
+            if (indexedAsset != null && id.equals(indexedAsset.getID())) {
+                return indexedAsset;
+            }
+
             try {
-                return DamUtil.getAssetFromID(request.getResourceResolver(), id);
+                final Asset asset = DamUtil.getAssetFromID(request.getResourceResolver(), id);
+
+                if (asset != null) {
+                    assetIdIndex.put(id, asset.getPath());
+                }
+
+                return asset;
             } catch (RepositoryException e) {
                 log.error("Error attempting to resolve asset via ID [ " + id + " ]", e);
             }
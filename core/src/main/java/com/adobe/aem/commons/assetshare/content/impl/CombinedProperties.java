@@ -19,7 +19,9 @@
 
 package com.adobe.aem.commons.assetshare.content.impl;
 
+import com.adobe.aem.commons.assetshare.content.impl.cache.ComputedPropertyCache;
 import com.adobe.aem.commons.assetshare.content.properties.ComputedProperty;
+import com.adobe.aem.commons.assetshare.search.impl.timing.SearchTimer;
 import com.day.cq.dam.api.Asset;
 import org.apache.sling.api.SlingHttpServletRequest;
 import org.apache.sling.api.resource.Resource;
@@ -28,6 +30,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.function.Supplier;
 
 public final class CombinedProperties implements Map<String, Object> {
     private static final Logger log = LoggerFactory.getLogger(CombinedProperties.class);
@@ -37,12 +40,18 @@ public final class CombinedProperties implements Map<String, Object> {
 
     private final Map<String, ComputedProperty> computedProperties;
     private final Map<String, Object> cachedValues = new HashMap<>();
+    private final ComputedPropertySnapshot computedPropertySnapshot;
+    private final ComputedPropertyCache computedPropertyCache;
+    private final ComputedPropertyMetrics computedPropertyMetrics;
     private final SlingHttpServletRequest request;
     private final Asset asset;
 
     private ValueMap assetProperties;
     private ValueMap metaProperties;
 
+    // True while a computed property (and its dependencies) are being computed
+    private boolean computing = false;
+
     public CombinedProperties(final List<ComputedProperty> computedProperties,
                               final SlingHttpServletRequest request,
                               final Asset asset) {
@@ -51,11 +60,35 @@ public final class CombinedProperties implements Map<String, Object> {
 
         this.request = request;
         this.asset = asset;
-        this.assetProperties = getProperties();
-        this.metaProperties = getMetadataProperties();
+        this.computedPropertySnapshot = null;
+        this.computedPropertyCache = null;
+        this.computedPropertyMetrics = null;
         this.computedProperties = getComputedPropertiesMap(computedProperties);
     }
 
+    /**
+     * @param computedPropertyRegistry the registry providing the computed properties; its snapshot is used as is, so no per asset set up is required, and both the computed properties and their dependencies are resolved from it.
+     * @param computedPropertyCache the cross-request cache of computed property values, or null.
+     * @param computedPropertyMetrics the metrics computed property evaluations are recorded to, or null.
+     * @param request the request.
+     * @param asset the asset.
+     */
+    public CombinedProperties(final ComputedPropertyRegistry computedPropertyRegistry,
+                              final ComputedPropertyCache computedPropertyCache,
+                              final ComputedPropertyMetrics computedPropertyMetrics,
+                              final SlingHttpServletRequest request,
+                              final Asset asset) {
+
+        log.trace("Constructing CombinedProperties for [ {} ]", asset.getPath());
+
+        this.request = request;
+        this.asset = asset;
+        this.computedPropertySnapshot = computedPropertyRegistry.getSnapshot();
+        this.computedPropertyCache = computedPropertyCache;
+        this.computedPropertyMetrics = computedPropertyMetrics != null && computedPropertyMetrics.isEnabled() ? computedPropertyMetrics : null;
+        this.computedProperties = computedPropertySnapshot.getComputedProperties();
+    }
+
     @Override
     public final int size() {
         return computedProperties.size();
@@ -80,11 +113,11 @@ public final class CombinedProperties implements Map<String, Object> {
         }
 
         if (!result) {
-            result = assetProperties.get(propertyName) != null;
+            result = getProperties().get(propertyName) != null;
         }
 
         if (!result) {
-            result = metaProperties.get(propertyName) != null;
+            result = getMetadataProperties().get(propertyName) != null;
         }
 
         return result;
@@ -110,33 +143,20 @@ public final class CombinedProperties implements Map<String, Object> {
         final ComputedProperty computedProperty = computedProperties.get(propertyName);
 
         if (computedProperty != null) {
-            if (computedProperty.isCachable() && cachedValues.containsKey(propertyName)) {
-                result = cachedValues.get(propertyName);
-                if (log.isDebugEnabled()) {
-                    log.debug(String.format("Computed value [ %s -> %s ] using [ %s ] served from ComputedPropertyAccessor cache.", propertyName, result, computedProperty.getClass().getName()));
-                }
-            } else if (computedProperty.accepts(asset, request, propertyName)) {
-                try {
-                    result = computedProperty.get(asset, request);
-                    if (computedProperty.isCachable()) {
-                        cachedValues.put(propertyName, result);
-                    }
-                    if (log.isDebugEnabled()) {
-                        log.debug(String.format("Computed value [ %s -> %s ] using [ %s ] ", propertyName, result, computedProperty.getClass().getName()));
-                    }
-                } catch (Exception ex) {
-                    log.error("Exception occurred when requesting computed property [ {} ] for asset [ {} ]. Returning null.", propertyName, asset.getPath());
-                    return null;
-                }
+            try {
+                result = getComputedValue(computedProperty);
+            } catch (Exception ex) {
+                log.error("Exception occurred when requesting computed property [ {} ] for asset [ {} ]. Returning null.", propertyName, asset.getPath());
+                return null;
             }
         }
 
-        if (result == null && metaProperties != null) {
-            result = metaProperties.get(propertyName);
+        if (result == null) {
+            result = getMetadataProperties().get(propertyName);
         }
 
-        if (result == null && assetProperties != null) {
-            result = assetProperties.get(propertyName);
+        if (result == null) {
+            result = getProperties().get(propertyName);
         }
 
         return result;
@@ -191,12 +211,176 @@ public final class CombinedProperties implements Map<String, Object> {
      * private helper methods
      **/
 
+    /**
+     * @param computedProperty the computed property.
+     * @return the value of the computed property, or null if it does not accept the asset.
+     */
+    private Object getComputedValue(final ComputedProperty computedProperty) {
+        final String propertyName = computedProperty.getName();
+
+        if (computedProperty.isCachable() && cachedValues.containsKey(propertyName)) {
+            final Object result = cachedValues.get(propertyName);
+            if (computedPropertyMetrics != null) {
+                computedPropertyMetrics.recordCacheHit(computedProperty);
+            }
+            if (log.isDebugEnabled()) {
+                log.debug(String.format("Computed value [ %s -> %s ] using [ %s ] served from ComputedPropertyAccessor cache.", propertyName, result, computedProperty.getClass().getName()));
+            }
+            return result;
+        } else if (!computedProperty.accepts(asset, request, propertyName)) {
+            return null;
+        }
+
+        // Dependencies are timed as part of the computed property that depends on them
+        final boolean timed = !computing;
+        final long start = timed ? SearchTimer.start(request) : 0;
+
+        computing = true;
+
+        try {
+            final Object result = computeValue(computedProperty);
+            if (computedProperty.isCachable()) {
+                cachedValues.put(propertyName, result);
+            }
+            if (log.isDebugEnabled()) {
+                log.debug(String.format("Computed value [ %s -> %s ] using [ %s ] ", propertyName, result, computedProperty.getClass().getName()));
+            }
+            return result;
+        } finally {
+            if (timed) {
+                computing = false;
+                SearchTimer.record(request, SearchTimer.PHASE_PROPERTIES, start);
+            }
+        }
+    }
+
+    /**
+     * Computes the value, via the cross-request cache if the computed property is cacheable.
+     * When metrics are recorded, only the actual computation is timed; values served from the cross-request cache or from a prior batch computation are recorded as cache hits, and batch computations are timed separately.
+     * The values of the computed property's dependencies are resolved via getComputedValue(..), so they are cached like any other value, and passed to the computed property.
+     *
+     * @param computedProperty the computed property.
+     * @return the value of the computed property.
+     */
+    @SuppressWarnings("unchecked")
+    private Object computeValue(final ComputedProperty computedProperty) {
+        final List<String> dependencies = computedPropertySnapshot != null ? computedPropertySnapshot.getDependencies(computedProperty.getName()) : Collections.emptyList();
+
+        final Supplier<Object> value;
+
+        if (dependencies.isEmpty()) {
+            value = () -> {
+                final ComputedPropertyBatch batch = ComputedPropertyBatch.get(request);
+
+                if (batch != null && ComputedPropertyBatch.isBatchable(computedProperty)) {
+                    return measureBatch(computedProperty, batch);
+                }
+
+                return measure(computedProperty, () -> computedProperty.get(asset, request));
+            };
+        } else {
+            value = () -> measure(computedProperty, () -> {
+                final Map<String, Object> dependencyValues = new HashMap<>();
+
+                for (final String dependency : dependencies) {
+                    dependencyValues.put(dependency, getComputedValue(computedProperties.get(dependency)));
+                }
+
+                return computedProperty.get(asset, request, dependencyValues);
+            });
+        }
+
+        if (computedPropertyCache != null && computedPropertyCache.isCacheable(computedProperty)) {
+            final boolean[] computed = {false};
+            final Object result = computedPropertyCache.get(computedProperty, asset, request, () -> {
+                computed[0] = true;
+                return value.get();
+            });
+
+            if (!computed[0] && computedPropertyMetrics != null) {
+                computedPropertyMetrics.recordCacheHit(computedProperty);
+            }
+
+            return result;
+        } else {
+            return value.get();
+        }
+    }
+
+    /**
+     * @param computedProperty the computed property.
+     * @param batch the request's batch.
+     * @return the value of the computed property from the batch; a batch computation is recorded to the metrics as such, and a value computed by a prior batch computation as a cache hit.
+     */
+    private Object measureBatch(final ComputedProperty computedProperty, final ComputedPropertyBatch batch) {
+        if (computedPropertyMetrics == null) {
+            return batch.get(computedProperty, asset, request, computedPropertyCache);
+        } else if (batch.contains(computedProperty, asset)) {
+            computedPropertyMetrics.recordCacheHit(computedProperty);
+            return batch.get(computedProperty, asset, request, computedPropertyCache);
+        }
+
+        final long start = System.nanoTime();
+
+        try {
+            final Object result = batch.get(computedProperty, asset, request, computedPropertyCache);
+            computedPropertyMetrics.recordBatchComputed(computedProperty, start);
+            return result;
+        } catch (RuntimeException ex) {
+            computedPropertyMetrics.recordError(computedProperty);
+            throw ex;
+        }
+    }
+
+    /**
+     * @param computedProperty the computed property.
+     * @param value computes the value of the computed property.
+     * @return the computed value; the computation's latency, or its exception, is recorded to the metrics.
+     */
+    private Object measure(final ComputedProperty computedProperty, final Supplier<Object> value) {
+        if (computedPropertyMetrics == null) {
+            return value.get();
+        }
+
+        final long start = System.nanoTime();
+
+        try {
+            final Object result = value.get();
+            computedPropertyMetrics.recordComputed(computedProperty, start);
+            return result;
+        } catch (RuntimeException ex) {
+            computedPropertyMetrics.recordError(computedProperty);
+            throw ex;
+        }
+    }
+
+    /**
+     * The asset's properties are only resolved when a property is not provided by a computed property or the metadata, as most are.
+     *
+     * @return the asset's properties.
+     */
     protected final ValueMap getProperties() {
-        return asset.adaptTo(Resource.class).getValueMap();
+        if (assetProperties == null) {
+            final Resource resource = asset.adaptTo(Resource.class);
+            assetProperties = resource != null ? resource.getValueMap() : ValueMap.EMPTY;
+        }
+
+        return assetProperties;
     }
 
+    /**
+     * The metadata is only resolved when a property is not provided by a computed property, so cards that only render computed properties never resolve it.
+     *
+     * @return the asset's metadata properties, or an empty ValueMap if the asset has no metadata.
+     */
     protected final ValueMap getMetadataProperties() {
-        return asset.adaptTo(Resource.class).getChild("jcr:content/metadata").getValueMap();
+        if (metaProperties == null) {
+            final Resource resource = asset.adaptTo(Resource.class);
+            final Resource metadataResource = resource != null ? resource.getChild("jcr:content/metadata") : null;
+            metaProperties = metadataResource != null ? metadataResource.getValueMap() : ValueMap.EMPTY;
+        }
+
+        return metaProperties;
     }
 
     protected final Map<String, ComputedProperty> getComputedPropertiesMap(final List<ComputedProperty> computedProperties) {
@@ -0,0 +1,166 @@
+/*
+ * Asset Share Commons
+ *
+ * Copyright (C) 2018 Adobe
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.adobe.aem.commons.assetshare.content.impl;
+
+import com.adobe.aem.commons.assetshare.content.impl.cache.ComputedPropertyCache;
+import com.adobe.aem.commons.assetshare.content.properties.ComputedProperty;
+import com.day.cq.dam.api.Asset;
+import org.apache.sling.api.SlingHttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.servlet.ServletRequest;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Collects the assets adapted to asset models during a request (ie. the hits of a result page), so a batchable computed property requested for one of them is computed for all of them with a single ComputedProperty.getAll(..) call.
+ * Only computed properties that opt in to batching (see ComputedProperty.isBatchable()) are batched; and as the batch memoizes the values for the request, only if their values may be cached (see ComputedProperty.isCachable()).
+ *
+ * The batch is held as a request attribute; as it is only used by the request's thread it is not thread-safe.
+ */
+public final class ComputedPropertyBatch {
+    private static final Logger log = LoggerFactory.getLogger(ComputedPropertyBatch.class);
+
+    private static final String REQUEST_ATTR = ComputedPropertyBatch.class.getName();
+
+    private final Map<String, Asset> assets = new LinkedHashMap<>();
+
+    // Computed property name -> the asset paths the property was computed for
+    private final Map<String, Set<String>> computed = new HashMap<>();
+
+    // Computed property name -> asset path -> value
+    private final Map<String, Map<String, Object>> values = new HashMap<>();
+
+    private ComputedPropertyBatch() {
+    }
+
+    /**
+     * Adds the asset to the request's batch, creating the batch if required.
+     *
+     * @param request the request.
+     * @param asset the asset.
+     */
+    public static void add(final ServletRequest request, final Asset asset) {
+        if (request == null || asset == null) {
+            return;
+        }
+
+        ComputedPropertyBatch batch = get(request);
+
+        if (batch == null) {
+            batch = new ComputedPropertyBatch();
+            request.setAttribute(REQUEST_ATTR, batch);
+        }
+
+        batch.assets.putIfAbsent(asset.getPath(), asset);
+    }
+
+    /**
+     * @param request the request.
+     * @return the request's batch, or null if no assets were added to the request.
+     */
+    public static ComputedPropertyBatch get(final ServletRequest request) {
+        if (request == null) {
+            return null;
+        }
+
+        final Object batch = request.getAttribute(REQUEST_ATTR);
+
+        return batch instanceof ComputedPropertyBatch ? (ComputedPropertyBatch) batch : null;
+    }
+
+    /**
+     * @param computedProperty the computed property.
+     * @param asset the asset.
+     * @return true if the value of the computed property for the asset was computed by a prior batch computation, so get(..) will not compute it.
+     */
+    public boolean contains(final ComputedProperty computedProperty, final Asset asset) {
+        final Map<String, Object> computedValues = values.get(computedProperty.getName());
+
+        return isBatchable(computedProperty) && computedValues != null && computedValues.containsKey(asset.getPath());
+    }
+
+    /**
+     * Gets the value of the computed property for the asset; on the first request of the property for any asset in the batch (or added since), the property is computed for all of them.
+     * Assets whose value is already held by the cross-request cache are left out of the batch computation.
+     *
+     * @param computedProperty the computed property, which must accept the asset.
+     * @param asset the asset.
+     * @param request the request.
+     * @param computedPropertyCache the cross-request cache of computed property values, or null.
+     * @return the (possibly null) value of the computed property.
+     */
+    @SuppressWarnings("unchecked")
+    public Object get(final ComputedProperty computedProperty, final Asset asset, final SlingHttpServletRequest request, final ComputedPropertyCache computedPropertyCache) {
+        if (!isBatchable(computedProperty)) {
+            return computedProperty.get(asset, request);
+        }
+
+        final String name = computedProperty.getName();
+        final boolean cacheable = computedPropertyCache != null && computedPropertyCache.isCacheable(computedProperty);
+        final Set<String> computedPaths = computed.computeIfAbsent(name, key -> new HashSet<>());
+        final Map<String, Object> computedValues = values.computeIfAbsent(name, key -> new HashMap<>());
+
+        if (!computedPaths.contains(asset.getPath())) {
+            final List<Asset> pending = new ArrayList<>();
+
+            for (final Map.Entry<String, Asset> entry : assets.entrySet()) {
+                if (!computedPaths.contains(entry.getKey())
+                        && !entry.getKey().equals(asset.getPath())
+                        && !(cacheable && computedPropertyCache.contains(computedProperty, entry.getValue(), request))) {
+                    pending.add(entry.getValue());
+                }
+            }
+
+            pending.add(asset);
+
+            // Marked before computing, so a failing batch falls back to computing per asset rather than being retried for every asset
+            pending.forEach(pendingAsset -> computedPaths.add(pendingAsset.getPath()));
+
+            log.debug("Computing [ {} ] for a batch of [ {} ] assets", name, pending.size());
+
+            try {
+                computedValues.putAll(((ComputedProperty<Object>) computedProperty).getAll(pending, request));
+            } catch (RuntimeException e) {
+                log.warn("Could not compute [ {} ] for a batch of [ {} ] assets; computing it per asset", name, pending.size(), e);
+            }
+        }
+
+        if (computedValues.containsKey(asset.getPath())) {
+            return computedValues.get(asset.getPath());
+        }
+
+        return computedProperty.get(asset, request);
+    }
+
+    /**
+     * @param computedProperty the computed property.
+     * @return true if the computed property opts in to batching, and its values may be memoized for the request.
+     */
+    public static boolean isBatchable(final ComputedProperty computedProperty) {
+        return computedProperty.isBatchable() && computedProperty.isCachable();
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Asset Share Commons
+ *
+ * Copyright (C) 2018 Adobe
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.adobe.aem.commons.assetshare.content.impl;
+
+import com.adobe.aem.commons.assetshare.content.properties.ComputedProperty;
+
+/**
+ * Records per computed property implementation metrics, so the computed property responsible for slow or failing result rendering can be identified.
+ */
+public interface ComputedPropertyMetrics {
+    /**
+     * @return true if metrics are recorded.
+     */
+    boolean isEnabled();
+
+    /**
+     * Records a value computed by the computed property.
+     *
+     * @param computedProperty the computed property.
+     * @param start the System.nanoTime() at which the computation started.
+     */
+    void recordComputed(ComputedProperty computedProperty, long start);
+
+    /**
+     * Records the values of a page of results computed by the computed property in a single ComputedProperty.getAll(..) call.
+     *
+     * @param computedProperty the computed property.
+     * @param start the System.nanoTime() at which the computation started.
+     */
+    void recordBatchComputed(ComputedProperty computedProperty, long start);
+
+    /**
+     * Records a value of the computed property served from a cache, rather than computed.
+     *
+     * @param computedProperty the computed property.
+     */
+    void recordCacheHit(ComputedProperty computedProperty);
+
+    /**
+     * Records an exception thrown by the computed property.
+     *
+     * @param computedProperty the computed property.
+     */
+    void recordError(ComputedProperty computedProperty);
+}
@@ -0,0 +1,171 @@
+/*
+ * Asset Share Commons
+ *
+ * Copyright (C) 2018 Adobe
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.adobe.aem.commons.assetshare.content.impl;
+
+import com.adobe.aem.commons.assetshare.content.properties.ComputedProperty;
+import com.adobe.aem.commons.assetshare.util.impl.LatencyHistogram;
+import com.adobe.granite.jmx.annotation.AnnotatedStandardMBean;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Modified;
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.Designate;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.DynamicMBean;
+import javax.management.NotCompliantMBeanException;
+import javax.management.openmbean.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Aggregates the metrics of each computed property implementation, as recorded by CombinedProperties.
+ *
+ * Latencies are inclusive of the computation of the computed property's dependencies. Values computed in bulk for a page of results are recorded in a separate batch histogram,
+ * and the values subsequently served from the bulk computation are recorded as cache hits.
+ */
+@Component(
+        service = {ComputedPropertyMetrics.class, DynamicMBean.class},
+        property = {
+                "jmx.objectname=com.adobe.aem.commons.assetshare:type=Computed Property Metrics"
+        }
+)
+@Designate(ocd = ComputedPropertyMetricsImpl.Cfg.class)
+public class ComputedPropertyMetricsImpl extends AnnotatedStandardMBean implements ComputedPropertyMetrics, ComputedPropertyMetricsMBean {
+    private static final Logger log = LoggerFactory.getLogger(ComputedPropertyMetricsImpl.class);
+
+    private static final String[] METRICS_ITEMS = {"name", "implementation", "invocations", "cacheHits", "errors", "mean", "p50", "p90", "p99", "max", "buckets", "batches", "batchMean", "batchMax"};
+
+    // Computed property name and implementation -> metrics
+    private final ConcurrentMap<String, Metrics> metrics = new ConcurrentHashMap<>();
+
+    private Cfg cfg;
+
+    public ComputedPropertyMetricsImpl() throws NotCompliantMBeanException {
+        super(ComputedPropertyMetricsMBean.class);
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return cfg.enabled();
+    }
+
+    @Override
+    public void recordComputed(final ComputedProperty computedProperty, final long start) {
+        getMetrics(computedProperty).latency.record(System.nanoTime() - start);
+    }
+
+    @Override
+    public void recordBatchComputed(final ComputedProperty computedProperty, final long start) {
+        getMetrics(computedProperty).batchLatency.record(System.nanoTime() - start);
+    }
+
+    @Override
+    public void recordCacheHit(final ComputedProperty computedProperty) {
+        getMetrics(computedProperty).cacheHits.incrementAndGet();
+    }
+
+    @Override
+    public void recordError(final ComputedProperty computedProperty) {
+        getMetrics(computedProperty).errors.incrementAndGet();
+    }
+
+    private Metrics getMetrics(final ComputedProperty computedProperty) {
+        final String implementation = computedProperty.getClass().getName();
+
+        return metrics.computeIfAbsent(computedProperty.getName() + "\n" + implementation,
+                key -> new Metrics(computedProperty.getName(), implementation));
+    }
+
+    /** MBean Methods **/
+
+    @Override
+    public TabularData getMetrics() throws OpenDataException {
+        final CompositeType metricsType = new CompositeType("metrics", "Computed property metrics",
+                METRICS_ITEMS,
+                new String[]{"Name", "Implementation", "Invocations", "Cache hits", "Errors", "Mean (µs)", "50th percentile (µs)", "90th percentile (µs)", "99th percentile (µs)", "Max (µs)", "Buckets", "Batches", "Batch mean (µs)", "Batch max (µs)"},
+                new OpenType[]{SimpleType.STRING, SimpleType.STRING, SimpleType.LONG, SimpleType.LONG, SimpleType.LONG, SimpleType.DOUBLE, SimpleType.DOUBLE, SimpleType.DOUBLE, SimpleType.DOUBLE, SimpleType.DOUBLE, SimpleType.STRING, SimpleType.LONG, SimpleType.DOUBLE, SimpleType.DOUBLE});
+        final TabularDataSupport tabularData = new TabularDataSupport(new TabularType("metrics", "Computed property metrics", metricsType, new String[]{"name", "implementation"}));
+
+        for (final Metrics computedPropertyMetrics : metrics.values()) {
+            final LatencyHistogram latency = computedPropertyMetrics.latency;
+            final LatencyHistogram batchLatency = computedPropertyMetrics.batchLatency;
+            final long cacheHits = computedPropertyMetrics.cacheHits.get();
+            final long errors = computedPropertyMetrics.errors.get();
+
+            tabularData.put(new CompositeDataSupport(metricsType, METRICS_ITEMS, new Object[]{
+                    computedPropertyMetrics.name,
+                    computedPropertyMetrics.implementation,
+                    latency.getCount() + batchLatency.getCount() + cacheHits + errors,
+                    cacheHits,
+                    errors,
+                    latency.getMean(),
+                    latency.getPercentile(50),
+                    latency.getPercentile(90),
+                    latency.getPercentile(99),
+                    latency.getMax(),
+                    latency.getBuckets(),
+                    batchLatency.getCount(),
+                    batchLatency.getMean(),
+                    batchLatency.getMax()}));
+        }
+
+        return tabularData;
+    }
+
+    @Override
+    public void reset() {
+        metrics.clear();
+        log.info("Reset the Asset Share Commons computed property metrics");
+    }
+
+    @Activate
+    @Modified
+    protected void activate(final Cfg cfg) {
+        this.cfg = cfg;
+    }
+
+    private static final class Metrics {
+        private final String name;
+        private final String implementation;
+        // Computed properties typically run in microseconds, so their latencies are bucketed with sub-millisecond resolution
+        private final LatencyHistogram latency = LatencyHistogram.microseconds();
+        private final LatencyHistogram batchLatency = LatencyHistogram.microseconds();
+        private final AtomicLong cacheHits = new AtomicLong();
+        private final AtomicLong errors = new AtomicLong();
+
+        private Metrics(final String name, final String implementation) {
+            this.name = name;
+            this.implementation = implementation;
+        }
+    }
+
+    @ObjectClassDefinition(name = "Asset Share Commons - Computed Property Metrics")
+    public @interface Cfg {
+        @AttributeDefinition(
+                name = "Enabled",
+                description = "Record the invocation, cache hit and error counts, and the latency histograms of each computed property implementation."
+        )
+        boolean enabled() default true;
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Asset Share Commons
+ *
+ * Copyright (C) 2018 Adobe
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.adobe.aem.commons.assetshare.content.impl;
+
+import com.adobe.aem.commons.assetshare.content.properties.ComputedProperty;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Provides the registered computed properties by name.
+ */
+public interface ComputedPropertyRegistry {
+    /**
+     * @param name the name of the computed property.
+     * @return the best ranked computed property registered with the name, or null if none is registered.
+     */
+    ComputedProperty get(String name);
+
+    /**
+     * The returned map is an immutable snapshot, and is replaced (not modified) when computed properties are registered or unregistered.
+     *
+     * @return the best ranked computed property per name.
+     */
+    Map<String, ComputedProperty> getComputedProperties();
+
+    /**
+     * Computed properties on a dependency cycle are reported as having no dependencies, so they are computed without the values of the computed properties they depend on.
+     *
+     * @param name the name of the computed property.
+     * @return the names of the registered computed properties the computed property depends on (see ComputedProperty.getDependencies()).
+     */
+    List<String> getDependencies(String name);
+
+    /**
+     * Consumers that resolve both computed properties and their dependencies should do so from a single snapshot, as the registry's snapshot is replaced when computed properties are registered or unregistered.
+     *
+     * @return the current snapshot of the registered computed properties and their dependencies.
+     */
+    ComputedPropertySnapshot getSnapshot();
+}
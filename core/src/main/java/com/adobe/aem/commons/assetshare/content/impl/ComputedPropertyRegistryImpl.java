@@ -0,0 +1,162 @@
+/*
+ * Asset Share Commons
+ *
+ * Copyright (C) 2018 Adobe
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.adobe.aem.commons.assetshare.content.impl;
+
+import com.adobe.aem.commons.assetshare.content.properties.ComputedProperty;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.apache.commons.lang3.StringUtils;
+import org.osgi.framework.ServiceReference;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ReferenceCardinality;
+import org.osgi.service.component.annotations.ReferencePolicy;
+import org.osgi.service.component.annotations.ReferencePolicyOption;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps an immutable snapshot of the registered computed properties by name, so asset models look up computed properties without building a map per asset.
+ *
+ * The snapshot is rebuilt when a computed property is bound or unbound; when several computed properties share a name, the best ranked one wins (the same as the first in a ranked list of the services).
+ * The dependencies between the computed properties are resolved, and checked for cycles, when the snapshot is built.
+ */
+@Component(service = ComputedPropertyRegistry.class)
+public class ComputedPropertyRegistryImpl implements ComputedPropertyRegistry {
+    private static final Logger log = LoggerFactory.getLogger(ComputedPropertyRegistryImpl.class);
+
+    private final Map<ServiceReference<ComputedProperty>, ComputedProperty> references = new HashMap<>();
+
+    private volatile ComputedPropertySnapshot snapshot = new ComputedPropertySnapshot(Collections.emptyMap(), Collections.emptyMap());
+
+    @Override
+    public ComputedProperty get(final String name) {
+        return name == null ? null : snapshot.getComputedProperties().get(name);
+    }
+
+    @Override
+    public Map<String, ComputedProperty> getComputedProperties() {
+        return snapshot.getComputedProperties();
+    }
+
+    @Override
+    public List<String> getDependencies(final String name) {
+        return snapshot.getDependencies(name);
+    }
+
+    @Override
+    public ComputedPropertySnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    @Reference(
+            cardinality = ReferenceCardinality.MULTIPLE,
+            policy = ReferencePolicy.DYNAMIC,
+            policyOption = ReferencePolicyOption.GREEDY
+    )
+    protected void bindComputedProperty(final ComputedProperty computedProperty, final ServiceReference<ComputedProperty> reference) {
+        synchronized (references) {
+            references.put(reference, computedProperty);
+            snapshot = snapshot();
+        }
+    }
+
+    protected void unbindComputedProperty(final ComputedProperty computedProperty, final ServiceReference<ComputedProperty> reference) {
+        synchronized (references) {
+            references.remove(reference);
+            snapshot = snapshot();
+        }
+    }
+
+    private ComputedPropertySnapshot snapshot() {
+        // ServiceReferences order by ranking (then by age), with the best ranked being the greatest
+        final List<ServiceReference<ComputedProperty>> ranked = new ArrayList<>(references.keySet());
+        ranked.sort(Collections.reverseOrder());
+
+        final Map<String, ComputedProperty> computedProperties = new HashMap<>();
+
+        for (final ServiceReference<ComputedProperty> reference : ranked) {
+            final ComputedProperty computedProperty = references.get(reference);
+            final String name = computedProperty.getName();
+
+            if (StringUtils.isBlank(name)) {
+                log.warn("Ignoring ComputedProperty [ {} ] as it has no name", computedProperty.getClass().getName());
+            } else if (!computedProperties.containsKey(name)) {
+                computedProperties.put(name, computedProperty);
+                log.trace("Registered ComputedProperty [ {} ] with key [ {} ]", computedProperty.getClass().getName(), name);
+            } else {
+                log.debug("ComputedProperty [ {} ] with key [ {} ] already provided by a better ranked implementation", computedProperty.getClass().getName(), name);
+            }
+        }
+
+        return new ComputedPropertySnapshot(ImmutableMap.copyOf(computedProperties), getDependencies(computedProperties));
+    }
+
+    private Map<String, List<String>> getDependencies(final Map<String, ComputedProperty> computedProperties) {
+        final Map<String, List<String>> dependencies = new HashMap<>();
+
+        for (final ComputedProperty computedProperty : computedProperties.values()) {
+            final String[] names = computedProperty.getDependencies();
+
+            dependencies.put(computedProperty.getName(), names == null ? Collections.emptyList() :
+                    Arrays.stream(names)
+                            .filter(computedProperties::containsKey)
+                            .distinct()
+                            .collect(Collectors.toList()));
+        }
+
+        // Resolving the dependencies of a computed property on a cycle would never end, so it is computed without them
+        final List<String> cyclic = dependencies.keySet().stream()
+                .filter(name -> isReachable(name, name, dependencies, new HashSet<>()))
+                .collect(Collectors.toList());
+
+        for (final String name : cyclic) {
+            log.error("ComputedProperty [ {} ] is on a dependency cycle via {}; it will be computed without its dependencies", name, dependencies.get(name));
+            dependencies.put(name, Collections.emptyList());
+        }
+
+        final ImmutableMap.Builder<String, List<String>> builder = ImmutableMap.builder();
+        dependencies.forEach((name, names) -> builder.put(name, ImmutableList.copyOf(names)));
+
+        return builder.build();
+    }
+
+    private boolean isReachable(final String from, final String target, final Map<String, List<String>> dependencies, final Set<String> visited) {
+        for (final String dependency : dependencies.get(from)) {
+            if (dependency.equals(target)) {
+                return true;
+            } else if (visited.add(dependency) && isReachable(dependency, target, dependencies, visited)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Asset Share Commons
+ *
+ * Copyright (C) 2018 Adobe
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.adobe.aem.commons.assetshare.content.impl;
+
+import com.adobe.aem.commons.assetshare.content.properties.ComputedProperty;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable snapshot of the registered computed properties and the dependencies between them.
+ *
+ * The dependencies of a snapshot only name computed properties of the same snapshot, so consumers that resolve both from one snapshot are unaffected by computed properties being registered or unregistered meanwhile.
+ */
+public final class ComputedPropertySnapshot {
+    private final Map<String, ComputedProperty> computedProperties;
+    private final Map<String, List<String>> dependencies;
+
+    ComputedPropertySnapshot(final Map<String, ComputedProperty> computedProperties, final Map<String, List<String>> dependencies) {
+        this.computedProperties = computedProperties;
+        this.dependencies = dependencies;
+    }
+
+    /**
+     * @return the best ranked computed property per name.
+     */
+    public Map<String, ComputedProperty> getComputedProperties() {
+        return computedProperties;
+    }
+
+    /**
+     * @param name the name of the computed property.
+     * @return the names of the computed properties of this snapshot the computed property depends on.
+     */
+    public List<String> getDependencies(final String name) {
+        final List<String> names = name == null ? null : dependencies.get(name);
+        return names == null ? Collections.emptyList() : names;
+    }
+}
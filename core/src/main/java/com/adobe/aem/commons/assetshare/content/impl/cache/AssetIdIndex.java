@@ -0,0 +1,41 @@
+/*
+ * Asset Share Commons
+ *
+ * Copyright (C) 2018 Adobe
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.adobe.aem.commons.assetshare.content.impl.cache;
+
+/**
+ * A node-wide index of asset IDs (jcr:uuid) to asset paths, shared across requests.
+ *
+ * The index only maps IDs to paths; callers must resolve the path with their own resource resolver (so access control is applied), and verify the resolved asset's ID, as an indexed path may be stale.
+ */
+public interface AssetIdIndex {
+    /**
+     * @param id the asset ID.
+     * @return the path of the asset with the ID, or null if the ID is not indexed.
+     */
+    String getPath(String id);
+
+    /**
+     * Indexes the path of the asset with the ID.
+     *
+     * @param id the asset ID.
+     * @param path the asset path.
+     */
+    void put(String id, String path);
+}
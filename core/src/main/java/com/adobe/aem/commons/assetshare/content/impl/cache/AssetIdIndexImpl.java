@@ -0,0 +1,125 @@
+/*
+ * Asset Share Commons
+ *
+ * Copyright (C) 2018 Adobe
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.adobe.aem.commons.assetshare.content.impl.cache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.sling.api.resource.observation.ExternalResourceChangeListener;
+import org.apache.sling.api.resource.observation.ResourceChange;
+import org.apache.sling.api.resource.observation.ResourceChangeListener;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Modified;
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.Designate;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
+
+import java.util.List;
+
+/**
+ * Indexes asset IDs to asset paths, so asset details pages addressed by asset ID do not look up the asset by its ID on every view.
+ *
+ * The index is warmed lazily, as assets are resolved by their ID.
+ * Removals of assets or folders (which include moves and renames) remove the indexed paths beneath them; the moved asset is re-indexed at its new path the next time it is resolved by its ID.
+ */
+@Component(
+        service = {AssetIdIndex.class, ResourceChangeListener.class},
+        property = {
+                ResourceChangeListener.CHANGES + "=REMOVED"
+        }
+)
+@Designate(ocd = AssetIdIndexImpl.Cfg.class)
+public class AssetIdIndexImpl implements AssetIdIndex, ExternalResourceChangeListener {
+    private static final String DEFAULT_PATH = "/content/dam";
+    private static final long DEFAULT_MAX_ASSETS = 100000;
+    private static final String JCR_CONTENT = "/jcr:content";
+
+    // Asset ID -> asset path
+    private Cache<String, String> index;
+
+    private Cfg cfg;
+
+    @Override
+    public String getPath(final String id) {
+        if (!cfg.enabled() || StringUtils.isBlank(id)) {
+            return null;
+        }
+
+        return index.getIfPresent(id);
+    }
+
+    @Override
+    public void put(final String id, final String path) {
+        if (cfg.enabled() && StringUtils.isNotBlank(id) && StringUtils.isNotBlank(path)) {
+            index.put(id, path);
+        }
+    }
+
+    @Override
+    public void onChange(final List<ResourceChange> changes) {
+        if (index.size() == 0) {
+            return;
+        }
+
+        for (final ResourceChange change : changes) {
+            final String path = change.getPath();
+
+            if (StringUtils.contains(path, JCR_CONTENT)) {
+                // Removals within an asset (ie. of renditions or metadata) do not remove the asset
+                continue;
+            }
+
+            final String prefix = StringUtils.removeEnd(path, "/") + "/";
+
+            index.asMap().values().removeIf(indexedPath -> indexedPath.equals(path) || StringUtils.startsWith(indexedPath, prefix));
+        }
+    }
+
+    @Activate
+    @Modified
+    protected void activate(final Cfg cfg) {
+        this.cfg = cfg;
+        this.index = CacheBuilder.newBuilder()
+                .maximumSize(cfg.max_assets())
+                .build();
+    }
+
+    @ObjectClassDefinition(name = "Asset Share Commons - Asset ID Index")
+    public @interface Cfg {
+        @AttributeDefinition(
+                name = "Enabled",
+                description = "Index the paths of assets resolved by their ID (ie. when assets are referenced by ID in asset details URLs)."
+        )
+        boolean enabled() default true;
+
+        @AttributeDefinition(
+                name = "Max assets",
+                description = "The maximum number of asset IDs to index."
+        )
+        long max_assets() default DEFAULT_MAX_ASSETS;
+
+        @AttributeDefinition(
+                name = "Invalidation paths",
+                description = "Removals (including moves and renames) of assets under these paths remove them from the index."
+        )
+        String[] resource_paths() default {DEFAULT_PATH};
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Asset Share Commons
+ *
+ * Copyright (C) 2018 Adobe
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.adobe.aem.commons.assetshare.content.impl.cache;
+
+import com.adobe.aem.commons.assetshare.content.properties.ComputedProperty;
+import com.day.cq.dam.api.Asset;
+import org.apache.sling.api.SlingHttpServletRequest;
+
+import java.util.function.Supplier;
+
+/**
+ * A node-wide cache of computed property values, shared across requests.
+ */
+public interface ComputedPropertyCache {
+    /**
+     * @param computedProperty the computed property.
+     * @return true if the values of the computed property are cached across requests.
+     */
+    boolean isCacheable(ComputedProperty computedProperty);
+
+    /**
+     * Gets the value of the computed property for the asset from the cache, computing and caching it if it is not cached.
+     *
+     * Values are keyed by the asset's path and last modified date, the computed property's name and the locale of the request.
+     *
+     * @param computedProperty the computed property to get the value of; this must be cacheable (see isCacheable(..)).
+     * @param asset the asset.
+     * @param request the request the value is computed for.
+     * @param value computes the value if it is not cached; this may get the values of other computed properties of the asset.
+     * @return the (possibly null) value of the computed property.
+     */
+    Object get(ComputedProperty computedProperty, Asset asset, SlingHttpServletRequest request, Supplier<Object> value);
+
+    /**
+     * @param computedProperty the computed property; this must be cacheable (see isCacheable(..)).
+     * @param asset the asset.
+     * @param request the request the value would be computed for.
+     * @return true if the value of the computed property for the asset is cached.
+     */
+    boolean contains(ComputedProperty computedProperty, Asset asset, SlingHttpServletRequest request);
+}
@@ -0,0 +1,267 @@
+/*
+ * Asset Share Commons
+ *
+ * Copyright (C) 2018 Adobe
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.adobe.aem.commons.assetshare.content.impl.cache;
+
+import com.adobe.aem.commons.assetshare.content.properties.ComputedProperty;
+import com.adobe.granite.jmx.annotation.AnnotatedStandardMBean;
+import com.day.cq.dam.api.Asset;
+import com.day.cq.wcm.api.Page;
+import com.day.cq.wcm.api.components.ComponentContext;
+import com.day.cq.wcm.commons.WCMUtils;
+import com.day.text.Text;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.apache.commons.lang3.ArrayUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.sling.api.SlingHttpServletRequest;
+import org.apache.sling.api.resource.observation.ExternalResourceChangeListener;
+import org.apache.sling.api.resource.observation.ResourceChange;
+import org.apache.sling.api.resource.observation.ResourceChangeListener;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Modified;
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.Designate;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.DynamicMBean;
+import javax.management.NotCompliantMBeanException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Caches the values of cacheable computed properties across requests, so properties such as thumbnail, type and fileSize are computed once per asset rather than once per request.
+ *
+ * Only the computed properties listed in the configuration are cached across requests, as their values must only depend on the asset and the locale; and not on the user, the user's access, the time or the rest of the request.
+ * Values are grouped per asset path, so the cache is bounded by the number of assets, and a change to an asset invalidates all its values.
+ */
+@Component(
+        service = {ComputedPropertyCache.class, ResourceChangeListener.class, DynamicMBean.class},
+        property = {
+                "jmx.objectname=com.adobe.aem.commons.assetshare:type=Computed Property Cache",
+                ResourceChangeListener.CHANGES + "=ADDED",
+                ResourceChangeListener.CHANGES + "=CHANGED",
+                ResourceChangeListener.CHANGES + "=REMOVED"
+        }
+)
+@Designate(ocd = ComputedPropertyCacheImpl.Cfg.class)
+public class ComputedPropertyCacheImpl extends AnnotatedStandardMBean implements ComputedPropertyCache, ComputedPropertyCacheMBean, ExternalResourceChangeListener {
+    private static final Logger log = LoggerFactory.getLogger(ComputedPropertyCacheImpl.class);
+
+    private static final String DEFAULT_PATH = "/content/dam";
+    private static final long DEFAULT_MAX_ASSETS = 10000;
+    private static final long DEFAULT_TTL = 3600;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong invalidationCount = new AtomicLong();
+
+    // Asset path -> (last modified, property name, locale) -> value
+    private Cache<String, ConcurrentMap<String, Optional<Object>>> cache;
+
+    private Cfg cfg;
+
+    public ComputedPropertyCacheImpl() throws NotCompliantMBeanException {
+        super(ComputedPropertyCacheMBean.class);
+    }
+
+    @Override
+    public boolean isCacheable(final ComputedProperty computedProperty) {
+        return cfg.enabled()
+                && computedProperty.isCachable()
+                && ArrayUtils.contains(cfg.computed_properties(), computedProperty.getName());
+    }
+
+    @Override
+    public Object get(final ComputedProperty computedProperty, final Asset asset, final SlingHttpServletRequest request, final Supplier<Object> value) {
+        final ConcurrentMap<String, Optional<Object>> values = cache.asMap().computeIfAbsent(asset.getPath(), key -> new ConcurrentHashMap<>());
+        final String key = getKey(computedProperty, asset, request);
+
+        Optional<Object> cachedValue = values.get(key);
+
+        if (cachedValue != null) {
+            hitCount.incrementAndGet();
+        } else {
+            // Not computed within computeIfAbsent(..), as computed properties may get other computed properties of the same asset
+            missCount.incrementAndGet();
+            cachedValue = Optional.ofNullable(value.get());
+            values.putIfAbsent(key, cachedValue);
+        }
+
+        return cachedValue.orElse(null);
+    }
+
+    @Override
+    public boolean contains(final ComputedProperty computedProperty, final Asset asset, final SlingHttpServletRequest request) {
+        final ConcurrentMap<String, Optional<Object>> values = cache.getIfPresent(asset.getPath());
+
+        return values != null && values.containsKey(getKey(computedProperty, asset, request));
+    }
+
+    private String getKey(final ComputedProperty computedProperty, final Asset asset, final SlingHttpServletRequest request) {
+        return asset.getLastModified() + "\n" + computedProperty.getName() + "\n" + getLocale(request);
+    }
+
+    /**
+     * Mirrors the locale resolution of locale-sensitive computed properties (such as TagTitlesImpl): the language of the current page, else the request's locale.
+     *
+     * @param request the request.
+     * @return the locale the request computes values for.
+     */
+    private Locale getLocale(final SlingHttpServletRequest request) {
+        if (request == null) {
+            return Locale.ROOT;
+        }
+
+        final ComponentContext componentContext = WCMUtils.getComponentContext(request);
+        final Page currentPage = componentContext != null ? componentContext.getPage() : null;
+
+        return currentPage != null ? currentPage.getLanguage(false) : request.getLocale();
+    }
+
+    @Override
+    public void onChange(final List<ResourceChange> changes) {
+        if (cache.size() == 0) {
+            return;
+        }
+
+        for (final ResourceChange change : changes) {
+            final String path = change.getPath();
+
+            // The changed resource may be the asset, or any resource within it (ie. its metadata or renditions)
+            String assetPath = path;
+            while (StringUtils.isNotBlank(assetPath) && !"/".equals(assetPath)) {
+                invalidate(assetPath);
+                assetPath = Text.getRelativeParent(assetPath, 1);
+            }
+
+            if (ResourceChange.ChangeType.REMOVED.equals(change.getType())) {
+                // A removed (or moved) folder removes all assets beneath it
+                final String prefix = StringUtils.removeEnd(path, "/") + "/";
+
+                cache.asMap().keySet().removeIf(key -> {
+                    if (StringUtils.startsWith(key, prefix)) {
+                        invalidationCount.incrementAndGet();
+                        return true;
+                    }
+                    return false;
+                });
+            }
+        }
+    }
+
+    private void invalidate(final String assetPath) {
+        if (cache.asMap().remove(assetPath) != null) {
+            invalidationCount.incrementAndGet();
+        }
+    }
+
+    /** MBean Methods **/
+
+    @Override
+    public long getSize() {
+        return cache.size();
+    }
+
+    @Override
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    @Override
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    @Override
+    public double getHitRate() {
+        final long requests = hitCount.get() + missCount.get();
+        return requests == 0 ? 1.0 : (double) hitCount.get() / requests;
+    }
+
+    @Override
+    public long getEvictionCount() {
+        return cache.stats().evictionCount();
+    }
+
+    @Override
+    public long getInvalidationCount() {
+        return invalidationCount.get();
+    }
+
+    @Override
+    public void clear() {
+        cache.invalidateAll();
+        log.info("Cleared the Asset Share Commons computed property cache");
+    }
+
+    @Activate
+    @Modified
+    protected void activate(final Cfg cfg) {
+        this.cfg = cfg;
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(cfg.max_assets())
+                .expireAfterWrite(cfg.ttl(), TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+    }
+
+    @ObjectClassDefinition(name = "Asset Share Commons - Computed Property Cache")
+    public @interface Cfg {
+        @AttributeDefinition(
+                name = "Enabled",
+                description = "Cache the values of the listed computed properties across requests. Cached values are computed under the session of the first caller, and served to all users."
+        )
+        boolean enabled() default false;
+
+        @AttributeDefinition(
+                name = "Computed properties",
+                description = "The names of the computed properties whose values are cached across requests. Only list computed properties whose value depends solely on the asset and the locale; "
+                        + "cached properties must not depend on the caller's access (ie. by resolving other resources, such as licenses or renditions, under the caller's session)."
+        )
+        String[] computed_properties() default {"type", "fileSize", "resolution", "width", "height", "smartTagTitles"};
+
+        @AttributeDefinition(
+                name = "Max assets",
+                description = "The maximum number of assets to cache computed property values for."
+        )
+        long max_assets() default DEFAULT_MAX_ASSETS;
+
+        @AttributeDefinition(
+                name = "Time-to-live",
+                description = "The time in seconds the computed property values of an asset are cached for."
+        )
+        long ttl() default DEFAULT_TTL;
+
+        @AttributeDefinition(
+                name = "Invalidation paths",
+                description = "Changes to assets under these paths invalidate their cached computed property values."
+        )
+        String[] resource_paths() default {DEFAULT_PATH};
+    }
+}
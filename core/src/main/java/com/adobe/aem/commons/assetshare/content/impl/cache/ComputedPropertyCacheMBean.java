@@ -0,0 +1,46 @@
+/*
+ * Asset Share Commons
+ *
+ * Copyright (C) 2018 Adobe
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.adobe.aem.commons.assetshare.content.impl.cache;
+
+import com.adobe.granite.jmx.annotation.Description;
+
+@Description("Asset Share Commons - Computed Property Cache")
+public interface ComputedPropertyCacheMBean {
+    @Description("Number of assets with cached computed property values")
+    long getSize();
+
+    @Description("Number of computed property values served from the cache")
+    long getHitCount();
+
+    @Description("Number of computed property values computed and cached")
+    long getMissCount();
+
+    @Description("Ratio of computed property values served from the cache")
+    double getHitRate();
+
+    @Description("Number of assets evicted from the cache due to size or time-to-live")
+    long getEvictionCount();
+
+    @Description("Number of assets invalidated due to resource changes")
+    long getInvalidationCount();
+
+    @Description("Removes all cached computed property values")
+    void clear();
+}
@@ -0,0 +1,226 @@
+/*
+ * Asset Share Commons
+ *
+ * Copyright (C) 2018 Adobe
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.adobe.aem.commons.assetshare.content.impl.cache;
+
+import com.day.cq.dam.api.Asset;
+import com.day.cq.dam.api.DamConstants;
+import com.day.cq.dam.api.Rendition;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * An immutable summary of an asset's renditions, so rendition lookups do not need to list the renditions in the JCR.
+ *
+ * Manifests are shared across requests, so they hold no reference to the asset, its resource or its resource resolver.
+ */
+public final class RenditionManifest {
+    private static final Pattern CQ5DAM_RENDITION_NAME = Pattern.compile("^cq5dam\\.[^.]+\\.(\\d+)\\.(\\d+)(\\..*)?$");
+    private static final String WEB_RENDITION_PREFIX = "cq5dam.web.";
+
+    private final List<Entry> entries;
+
+    private final Map<String, Entry> entriesByName;
+
+    RenditionManifest(final Asset asset) {
+        final ImmutableList.Builder<Entry> entriesBuilder = ImmutableList.builder();
+        final Map<String, Entry> entriesByNameBuilder = new LinkedHashMap<>();
+
+        for (final Rendition rendition : asset.getRenditions()) {
+            final Entry entry = new Entry(asset, rendition);
+
+            entriesBuilder.add(entry);
+            entriesByNameBuilder.putIfAbsent(entry.getName(), entry);
+        }
+
+        this.entries = entriesBuilder.build();
+        this.entriesByName = ImmutableMap.copyOf(entriesByNameBuilder);
+    }
+
+    /**
+     * @return the renditions of the asset, in the order the asset lists them.
+     */
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    /**
+     * @param name the rendition name.
+     * @return the rendition with the name, or null if the asset has no such rendition.
+     */
+    public Entry get(final String name) {
+        return entriesByName.get(name);
+    }
+
+    /**
+     * @return the original rendition, or null if the asset has no original.
+     */
+    public Entry getOriginal() {
+        return get(DamConstants.ORIGINAL_FILE);
+    }
+
+    /**
+     * Mirrors Asset.getImagePreviewRendition(), without listing the asset's renditions.
+     *
+     * @return the first web rendition, else the original rendition if it is an image, or null if the asset has neither.
+     */
+    public Entry getImagePreview() {
+        for (final Entry entry : entries) {
+            if (StringUtils.startsWith(entry.getName(), WEB_RENDITION_PREFIX)) {
+                return entry;
+            }
+        }
+
+        final Entry original = getOriginal();
+
+        return original != null && StringUtils.startsWith(original.getMimeType(), "image/") ? original : null;
+    }
+
+    /**
+     * @param pattern the pattern the rendition name must match.
+     * @return the renditions whose names match the pattern, in the order the asset lists them.
+     */
+    public List<Entry> find(final Pattern pattern) {
+        return find(pattern, entry -> true);
+    }
+
+    /**
+     * @param pattern the pattern the rendition name must match.
+     * @param filter further restricts the matching renditions.
+     * @return the renditions whose names match the pattern and which are accepted by the filter, in the order the asset lists them.
+     */
+    public List<Entry> find(final Pattern pattern, final Predicate<Entry> filter) {
+        final ImmutableList.Builder<Entry> result = ImmutableList.builder();
+
+        for (final Entry entry : entries) {
+            if (pattern.matcher(entry.getName()).matches() && filter.test(entry)) {
+                result.add(entry);
+            }
+        }
+
+        return result.build();
+    }
+
+    /**
+     * Gets the best fit web rendition for the width, selected as DamUtil.getBestFitRendition(..) does, but from this manifest's entries rather than by listing the asset's renditions.
+     *
+     * @param width the width the rendition should best fit.
+     * @return the narrowest web rendition at least as wide as the width, else the widest web rendition, or null if the asset has no web renditions.
+     */
+    public Entry getBestFit(final int width) {
+        Entry bestFit = null;
+        Entry widest = null;
+
+        for (final Entry entry : entries) {
+            if (!StringUtils.startsWith(entry.getName(), WEB_RENDITION_PREFIX)) {
+                continue;
+            }
+
+            if (entry.getWidth() >= width && (bestFit == null || entry.getWidth() < bestFit.getWidth())) {
+                bestFit = entry;
+            }
+
+            if (widest == null || entry.getWidth() > widest.getWidth()) {
+                widest = entry;
+            }
+        }
+
+        return bestFit != null ? bestFit : widest;
+    }
+
+    /**
+     * The summary of a single rendition.
+     */
+    public static final class Entry {
+        private final String name;
+        private final String path;
+        private final String mimeType;
+        private final long size;
+        private final int width;
+        private final int height;
+
+        Entry(final Asset asset, final Rendition rendition) {
+            this.name = rendition.getName();
+            this.path = rendition.getPath();
+            this.mimeType = rendition.getMimeType();
+            this.size = rendition.getSize();
+
+            if (DamConstants.ORIGINAL_FILE.equals(this.name)) {
+                this.width = NumberUtils.toInt(asset.getMetadataValue(DamConstants.TIFF_IMAGEWIDTH), 0);
+                this.height = NumberUtils.toInt(asset.getMetadataValue(DamConstants.TIFF_IMAGELENGTH), 0);
+            } else {
+                // Generated renditions encode their bounding box in their name, ie. cq5dam.web.1280.1280.jpeg
+                final Matcher matcher = CQ5DAM_RENDITION_NAME.matcher(StringUtils.defaultString(this.name));
+                this.width = matcher.matches() ? NumberUtils.toInt(matcher.group(1), 0) : 0;
+                this.height = matcher.matches() ? NumberUtils.toInt(matcher.group(2), 0) : 0;
+            }
+        }
+
+        /**
+         * @return the rendition name.
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return the rendition path.
+         */
+        public String getPath() {
+            return path;
+        }
+
+        /**
+         * @return the rendition's mime type.
+         */
+        public String getMimeType() {
+            return mimeType;
+        }
+
+        /**
+         * @return the rendition's size in bytes.
+         */
+        public long getSize() {
+            return size;
+        }
+
+        /**
+         * @return the rendition's width in pixels, or 0 if it is not known.
+         */
+        public int getWidth() {
+            return width;
+        }
+
+        /**
+         * @return the rendition's height in pixels, or 0 if it is not known.
+         */
+        public int getHeight() {
+            return height;
+        }
+    }
+}
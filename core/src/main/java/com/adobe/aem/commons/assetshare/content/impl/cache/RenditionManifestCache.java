@@ -0,0 +1,40 @@
+/*
+ * Asset Share Commons
+ *
+ * Copyright (C) 2018 Adobe
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.adobe.aem.commons.assetshare.content.impl.cache;
+
+import com.day.cq.dam.api.Asset;
+import org.apache.sling.api.SlingHttpServletRequest;
+
+/**
+ * A node-wide cache of rendition manifests, shared across requests.
+ */
+public interface RenditionManifestCache {
+    /**
+     * Gets the rendition manifest of the asset from the cache, creating and caching it if it is not cached.
+     *
+     * Manifests are keyed by the asset's path, and are invalidated when the asset's renditions change.
+     * If the cache is disabled, the manifest is shared by the consumers of the request instead.
+     *
+     * @param asset the asset.
+     * @param request the request the manifest is used by, or null if the manifest cannot be shared within a request.
+     * @return the rendition manifest of the asset.
+     */
+    RenditionManifest get(Asset asset, SlingHttpServletRequest request);
+}
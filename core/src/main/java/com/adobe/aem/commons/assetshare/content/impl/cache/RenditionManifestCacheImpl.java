@@ -0,0 +1,191 @@
+/*
+ * Asset Share Commons
+ *
+ * Copyright (C) 2018 Adobe
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.adobe.aem.commons.assetshare.content.impl.cache;
+
+import com.day.cq.dam.api.Asset;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.sling.api.SlingHttpServletRequest;
+import org.apache.sling.api.resource.observation.ExternalResourceChangeListener;
+import org.apache.sling.api.resource.observation.ResourceChange;
+import org.apache.sling.api.resource.observation.ResourceChangeListener;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Modified;
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.Designate;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches the rendition manifest of each asset, so the thumbnail, web rendition, renditions, image and video lookups of an asset do not each list its renditions.
+ *
+ * Manifests are created on first use, and are invalidated when anything beneath the asset's renditions folder or metadata changes, or when the asset itself is replaced or removed.
+ * The metadata provides the dimensions of the original rendition.
+ *
+ * Manifests are created under the session of the first caller and are shared with all users, so they are only cached if enabled; this must only be enabled if all users that can read an asset can read all its renditions.
+ * Otherwise each manifest is only shared by the consumers of the request that created it.
+ */
+@Component(
+        service = {RenditionManifestCache.class, ResourceChangeListener.class},
+        property = {
+                ResourceChangeListener.CHANGES + "=ADDED",
+                ResourceChangeListener.CHANGES + "=CHANGED",
+                ResourceChangeListener.CHANGES + "=REMOVED"
+        }
+)
+@Designate(ocd = RenditionManifestCacheImpl.Cfg.class)
+public class RenditionManifestCacheImpl implements RenditionManifestCache, ExternalResourceChangeListener {
+    private static final String DEFAULT_PATH = "/content/dam";
+    private static final String JCR_CONTENT = "/jcr:content";
+    private static final String RENDITIONS_PATH = JCR_CONTENT + "/renditions";
+    private static final String METADATA_PATH = JCR_CONTENT + "/metadata";
+    private static final long DEFAULT_MAX_ASSETS = 10000;
+    private static final long DEFAULT_TTL = 3600;
+    private static final String REQUEST_ATTR_MANIFESTS = RenditionManifestCacheImpl.class.getName() + "_manifests";
+
+    // Asset path -> rendition manifest
+    private Cache<String, RenditionManifest> cache;
+
+    // Incremented before each invalidation, so manifests created prior to an invalidation are not cached
+    private final AtomicLong generation = new AtomicLong();
+
+    private Cfg cfg;
+
+    @Override
+    public RenditionManifest get(final Asset asset, final SlingHttpServletRequest request) {
+        if (cfg.enabled()) {
+            return getCachedManifest(asset);
+        } else if (request != null) {
+            return getRequestManifests(request).computeIfAbsent(asset.getPath(), key -> new RenditionManifest(asset));
+        } else {
+            return new RenditionManifest(asset);
+        }
+    }
+
+    private RenditionManifest getCachedManifest(final Asset asset) {
+        final String path = asset.getPath();
+        final RenditionManifest cachedManifest = cache.getIfPresent(path);
+
+        if (cachedManifest != null) {
+            return cachedManifest;
+        }
+
+        final long createGeneration = generation.get();
+        final RenditionManifest manifest = new RenditionManifest(asset);
+        final RenditionManifest existingManifest = cache.asMap().putIfAbsent(path, manifest);
+
+        if (existingManifest != null) {
+            return existingManifest;
+        } else if (generation.get() != createGeneration) {
+            // Renditions were invalidated while the manifest was created, so it may be stale; an invalidation after this check removes the manifest itself
+            cache.asMap().remove(path, manifest);
+        }
+
+        return manifest;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, RenditionManifest> getRequestManifests(final SlingHttpServletRequest request) {
+        Map<String, RenditionManifest> manifests = (Map<String, RenditionManifest>) request.getAttribute(REQUEST_ATTR_MANIFESTS);
+
+        if (manifests == null) {
+            manifests = new HashMap<>();
+            request.setAttribute(REQUEST_ATTR_MANIFESTS, manifests);
+        }
+
+        return manifests;
+    }
+
+    @Override
+    public void onChange(final List<ResourceChange> changes) {
+        // Also incremented for an empty cache, as a manifest created prior to this change may be about to be added
+        generation.incrementAndGet();
+
+        if (cache.size() == 0) {
+            return;
+        }
+
+        for (final ResourceChange change : changes) {
+            final String path = change.getPath();
+
+            if (StringUtils.contains(path, RENDITIONS_PATH)) {
+                // A rendition (or the renditions folder) of the asset was added, changed or removed
+                cache.invalidate(StringUtils.substringBefore(path, RENDITIONS_PATH));
+            } else if (StringUtils.contains(path, METADATA_PATH)) {
+                // The metadata provides the original rendition's dimensions (tiff:ImageWidth and tiff:ImageLength)
+                cache.invalidate(StringUtils.substringBefore(path, METADATA_PATH));
+            } else if (StringUtils.contains(path, JCR_CONTENT)) {
+                // Other content of the asset does not affect its renditions
+                continue;
+            } else if (ResourceChange.ChangeType.REMOVED.equals(change.getType())) {
+                // A removed (or moved) asset or folder removes all the assets beneath it
+                final String prefix = StringUtils.removeEnd(path, "/") + "/";
+                cache.asMap().keySet().removeIf(key -> key.equals(path) || StringUtils.startsWith(key, prefix));
+            } else {
+                cache.invalidate(path);
+            }
+        }
+    }
+
+    @Activate
+    @Modified
+    protected void activate(final Cfg cfg) {
+        this.cfg = cfg;
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(cfg.max_assets())
+                .expireAfterWrite(cfg.ttl(), TimeUnit.SECONDS)
+                .build();
+    }
+
+    @ObjectClassDefinition(name = "Asset Share Commons - Rendition Manifest Cache")
+    public @interface Cfg {
+        @AttributeDefinition(
+                name = "Enabled",
+                description = "Cache the rendition manifests of assets across requests. Manifests are created under the session of the first caller, and served to all users; "
+                        + "only enable this if all users that can read an asset can read all its renditions."
+        )
+        boolean enabled() default false;
+
+        @AttributeDefinition(
+                name = "Max assets",
+                description = "The maximum number of assets to cache rendition manifests for."
+        )
+        long max_assets() default DEFAULT_MAX_ASSETS;
+
+        @AttributeDefinition(
+                name = "Time-to-live",
+                description = "The time in seconds the rendition manifest of an asset is cached for."
+        )
+        long ttl() default DEFAULT_TTL;
+
+        @AttributeDefinition(
+                name = "Invalidation paths",
+                description = "Changes to the renditions or metadata of assets under these paths invalidate their cached rendition manifests."
+        )
+        String[] resource_paths() default {DEFAULT_PATH};
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Asset Share Commons
+ *
+ * Copyright (C) 2018 Adobe
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.adobe.aem.commons.assetshare.content.impl.cache;
+
+import org.apache.sling.api.resource.ResourceResolver;
+
+import java.util.Locale;
+
+/**
+ * A node-wide cache of localized tag titles, shared across requests.
+ */
+public interface TagTitleCache {
+    /**
+     * @param resourceResolver the resource resolver used to resolve the tag if its title is not cached.
+     * @param tagId the tag ID (or path) as stored on the content.
+     * @param locale the locale of the title.
+     * @return the localized title of the tag, or null if the tag cannot be resolved.
+     */
+    String getTitle(ResourceResolver resourceResolver, String tagId, Locale locale);
+}
@@ -0,0 +1,201 @@
+/*
+ * Asset Share Commons
+ *
+ * Copyright (C) 2018 Adobe
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.adobe.aem.commons.assetshare.content.impl.cache;
+
+import com.day.cq.tagging.Tag;
+import com.day.cq.tagging.TagManager;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.api.resource.observation.ExternalResourceChangeListener;
+import org.apache.sling.api.resource.observation.ResourceChange;
+import org.apache.sling.api.resource.observation.ResourceChangeListener;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Modified;
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.Designate;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches localized tag titles by tag ID and locale, so rendering the tags of assets and tag predicates does not resolve each tag via the TagManager.
+ *
+ * Titles are cached on first use; tags that cannot be resolved are not cached, so a tag is only served from the cache once it was readable.
+ * Changes to tags invalidate the cached titles of the changed tag, and removals (or moves) also invalidate the titles of the tags beneath it.
+ *
+ * Titles are resolved under the session of the first caller and are shared with all users, so they are only cached if enabled; this must only be enabled if all users can read all tags.
+ */
+@Component(
+        service = {TagTitleCache.class, ResourceChangeListener.class},
+        property = {
+                ResourceChangeListener.CHANGES + "=ADDED",
+                ResourceChangeListener.CHANGES + "=CHANGED",
+                ResourceChangeListener.CHANGES + "=REMOVED"
+        }
+)
+@Designate(ocd = TagTitleCacheImpl.Cfg.class)
+public class TagTitleCacheImpl implements TagTitleCache, ExternalResourceChangeListener {
+    private static final String DEFAULT_TAGS_PATH = "/content/cq:tags";
+    private static final String LEGACY_TAGS_PATH = "/etc/tags";
+    private static final long DEFAULT_MAX_TAGS = 100000;
+    private static final long DEFAULT_TTL = 86400;
+
+    // Tag ID -> locale -> title
+    private Cache<String, ConcurrentMap<Locale, String>> cache;
+
+    // Incremented before each invalidation, so titles resolved prior to an invalidation are not cached
+    private final AtomicLong generation = new AtomicLong();
+
+    private Cfg cfg;
+
+    @Override
+    public String getTitle(final ResourceResolver resourceResolver, final String tagId, final Locale locale) {
+        if (StringUtils.isBlank(tagId)) {
+            return null;
+        } else if (!cfg.enabled()) {
+            return resolveTitle(resourceResolver, tagId, locale);
+        }
+
+        final ConcurrentMap<Locale, String> titles = cache.getIfPresent(tagId);
+        String title = titles != null ? titles.get(locale) : null;
+
+        if (title == null) {
+            final long resolveGeneration = generation.get();
+
+            title = resolveTitle(resourceResolver, tagId, locale);
+
+            if (title != null) {
+                // Only tags that resolve are added, so unresolvable tag IDs cannot evict the titles of real tags
+                final ConcurrentMap<Locale, String> cachedTitles = cache.asMap().computeIfAbsent(tagId, key -> new ConcurrentHashMap<>());
+
+                if (cachedTitles.putIfAbsent(locale, title) == null && generation.get() != resolveGeneration) {
+                    // Tags were invalidated while the title was resolved, so the title may be stale; an invalidation after this check removes the title itself
+                    cachedTitles.remove(locale, title);
+                }
+            }
+        }
+
+        return title;
+    }
+
+    private String resolveTitle(final ResourceResolver resourceResolver, final String tagId, final Locale locale) {
+        final TagManager tagManager = resourceResolver.adaptTo(TagManager.class);
+        final Tag tag = tagManager != null ? tagManager.resolve(tagId) : null;
+
+        return tag != null ? tag.getTitle(locale) : null;
+    }
+
+    @Override
+    public void onChange(final List<ResourceChange> changes) {
+        // Also incremented for an empty cache, as a title resolved prior to this change may be about to be added
+        generation.incrementAndGet();
+
+        if (cache.size() == 0) {
+            return;
+        }
+
+        for (final ResourceChange change : changes) {
+            final List<String> keys = getKeys(change.getPath());
+
+            if (ResourceChange.ChangeType.REMOVED.equals(change.getType())) {
+                cache.asMap().keySet().removeIf(key -> keys.stream().anyMatch(removed -> isSameOrDescendant(key, removed)));
+            } else {
+                cache.invalidateAll(keys);
+            }
+        }
+    }
+
+    /**
+     * @param path the path of a tag.
+     * @return the forms the tag may be cached by; its path and its tag ID (ie. namespace:parent/tag).
+     */
+    private List<String> getKeys(final String path) {
+        final List<String> keys = new ArrayList<>();
+        keys.add(path);
+
+        for (final String tagsPath : new String[]{ DEFAULT_TAGS_PATH, LEGACY_TAGS_PATH }) {
+            if (StringUtils.startsWith(path, tagsPath + "/")) {
+                final String relativePath = StringUtils.removeStart(path, tagsPath + "/");
+
+                if (relativePath.contains("/")) {
+                    keys.add(StringUtils.replaceOnce(relativePath, "/", ":"));
+                } else {
+                    // A namespace
+                    keys.add(relativePath + ":");
+                }
+            }
+        }
+
+        return keys;
+    }
+
+    private boolean isSameOrDescendant(final String key, final String removed) {
+        return key.equals(removed)
+                || key.startsWith(StringUtils.removeEnd(removed, "/") + "/")
+                || (removed.endsWith(":") && key.startsWith(removed));
+    }
+
+    @Activate
+    @Modified
+    protected void activate(final Cfg cfg) {
+        this.cfg = cfg;
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(cfg.max_tags())
+                .expireAfterWrite(cfg.ttl(), TimeUnit.SECONDS)
+                .build();
+    }
+
+    @ObjectClassDefinition(name = "Asset Share Commons - Tag Title Cache")
+    public @interface Cfg {
+        @AttributeDefinition(
+                name = "Enabled",
+                description = "Cache localized tag titles across requests. Titles are resolved under the session of the first caller, and served to all users; "
+                        + "only enable this if all users can read all tags, as users that cannot read a tag otherwise see its title rather than its tag ID."
+        )
+        boolean enabled() default false;
+
+        @AttributeDefinition(
+                name = "Max tags",
+                description = "The maximum number of tags to cache titles for."
+        )
+        long max_tags() default DEFAULT_MAX_TAGS;
+
+        @AttributeDefinition(
+                name = "Time-to-live",
+                description = "The time in seconds the titles of a tag are cached for."
+        )
+        long ttl() default DEFAULT_TTL;
+
+        @AttributeDefinition(
+                name = "Invalidation paths",
+                description = "Changes to tags under these paths invalidate their cached titles."
+        )
+        String[] resource_paths() default {DEFAULT_TAGS_PATH, LEGACY_TAGS_PATH};
+    }
+}
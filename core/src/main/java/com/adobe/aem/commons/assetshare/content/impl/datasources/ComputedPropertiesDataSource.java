@@ -19,6 +19,7 @@
 
 package com.adobe.aem.commons.assetshare.content.impl.datasources;
 
+import com.adobe.aem.commons.assetshare.content.impl.ComputedPropertyRegistry;
 import com.adobe.aem.commons.assetshare.content.properties.ComputedProperty;
 import com.adobe.aem.commons.assetshare.util.DataSourceBuilder;
 import org.apache.commons.lang3.ArrayUtils;
@@ -30,13 +31,10 @@ import org.apache.sling.api.servlets.SlingSafeMethodsServlet;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.ConfigurationPolicy;
 import org.osgi.service.component.annotations.Reference;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import javax.servlet.Servlet;
 import javax.servlet.ServletException;
 import java.io.IOException;
-import java.util.Collection;
 import java.util.Map;
 import java.util.TreeMap;
 
@@ -49,15 +47,13 @@ import java.util.TreeMap;
         configurationPolicy = ConfigurationPolicy.REQUIRE
 )
 public class ComputedPropertiesDataSource extends SlingSafeMethodsServlet {
-    private static final Logger log = LoggerFactory.getLogger(ComputedPropertiesDataSource.class);
-
     public static final String PN_COMPUTED_PROPERTY_TYPES = "computedPropertyTypes";
 
     @Reference
     private DataSourceBuilder dataSourceBuilder;
 
     @Reference
-    private transient Collection<ComputedProperty> computedProperties;
+    private transient ComputedPropertyRegistry computedPropertyRegistry;
 
     @Override
     protected final void doGet(SlingHttpServletRequest request, SlingHttpServletResponse response)
@@ -67,21 +63,13 @@ public class ComputedPropertiesDataSource extends SlingSafeMethodsServlet {
         final ValueMap properties = request.getResource().getValueMap();
         final String[] computedPropertyTypes = properties.get(PN_COMPUTED_PROPERTY_TYPES, new String[]{});
 
-        for (final ComputedProperty computedProperty : computedProperties) {
+        // The registry provides the best ranked Computed Property per key, as used by CombinedProperties
+        for (final ComputedProperty computedProperty : computedPropertyRegistry.getComputedProperties().values()) {
 
             if (ArrayUtils.isEmpty(computedPropertyTypes) ||
                     containsAny(computedPropertyTypes, computedProperty.getTypes())) {
 
-                final String key = computedProperty.getName();
-
-                if (StringUtils.isNotBlank(key)) {
-                    if (!data.containsKey(key)) {
-                        data.put(computedProperty.getLabel(), key);
-                    } else {
-                        // Note this follows the execution logic in CombinedProperties
-                        log.warn("Found duplicate Computed Property key [ {} ]. Only accepting the first instance.", key);
-                    }
-                }
+                data.put(computedProperty.getLabel(), computedProperty.getName());
             }
         }
 
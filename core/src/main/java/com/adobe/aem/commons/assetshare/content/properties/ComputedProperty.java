@@ -23,6 +23,10 @@ import com.day.cq.dam.api.Asset;
 import org.apache.sling.api.SlingHttpServletRequest;
 import org.osgi.annotation.versioning.ConsumerType;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 @ConsumerType
 public interface ComputedProperty<T> {
 
@@ -50,6 +54,66 @@ public interface ComputedProperty<T> {
 
     T get(Asset asset);
 
+    /**
+     * Computed properties whose values are derived from other computed properties (ie. resolution from width and height) declare the names of those computed properties here, and receive their values via get(asset, request, dependencies).
+     * The dependency values are resolved the same way as any other computed property value, so they are cached and reused across the computed properties of an asset.
+     *
+     * @return the names of the computed properties this computed property depends on.
+     */
+    default String[] getDependencies() {
+        return new String[]{};
+    }
+
+    /**
+     * Computes the value from the values of the computed properties it depends on (see getDependencies()).
+     * <p>
+     * The default implementation ignores the dependency values, and computes the value via get(asset, request).
+     *
+     * @param asset the asset.
+     * @param request the request.
+     * @param dependencies the (possibly null) values of the dependencies keyed by computed property name; dependencies that are not registered are absent.
+     * @return the computed value.
+     */
+    default T get(Asset asset, SlingHttpServletRequest request, Map<String, Object> dependencies) {
+        return get(asset, request);
+    }
+
+    /**
+     * Method that indicates if the values of this computed property may be computed for all the assets of a result page in one getAll(..) call.
+     * Batching is opt-in, as getAll(..) is passed the request of the asset that triggered the computation rather than each asset's own request.
+     * <p>
+     * The default implementation returns false; implementations that override getAll(..) should return true.
+     *
+     * @return true if the values of this computed property may be computed via getAll(..).
+     */
+    default boolean isBatchable() {
+        return false;
+    }
+
+    /**
+     * Computes the value for many assets in one call, so implementations can resolve data shared by the assets (ie. tags, the locale or configuration) once rather than per asset.
+     * This is used to compute a batchable (see isBatchable()) and cachable (see isCachable()) property for all the assets of a result page when the property is first requested for any of them.
+     * <p>
+     * The request is the request of the asset whose access triggered the computation, and is passed as-is for all the assets; implementations must only use it for state shared by the assets (ie. the locale, the current page or the user's session), and not for state specific to the triggering asset.
+     * <p>
+     * The default implementation computes the value of each accepted asset via get(asset, request).
+     *
+     * @param assets the assets to compute the value for.
+     * @param request the request.
+     * @return the (possibly null) values keyed by asset path; assets that are not accepted are absent.
+     */
+    default Map<String, T> getAll(Collection<Asset> assets, SlingHttpServletRequest request) {
+        final Map<String, T> values = new LinkedHashMap<>();
+
+        for (final Asset asset : assets) {
+            if (accepts(asset, request, getName())) {
+                values.put(asset.getPath(), get(asset, request));
+            }
+        }
+
+        return values;
+    }
+
     static final class Types {
         public static final String METADATA = "metadata";
         public static final String RENDITION = "rendition";
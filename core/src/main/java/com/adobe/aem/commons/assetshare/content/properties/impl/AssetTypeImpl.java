@@ -23,23 +23,41 @@ import com.adobe.aem.commons.assetshare.content.properties.AbstractComputedPrope
 import com.adobe.aem.commons.assetshare.content.properties.ComputedProperty;
 import com.day.cq.dam.api.Asset;
 import com.day.cq.dam.commons.util.UIHelper;
+import com.google.common.collect.ImmutableMap;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.sling.api.resource.Resource;
 import org.apache.sling.api.resource.ResourceResolver;
 import org.apache.sling.api.resource.ResourceUtil;
+import org.apache.sling.api.resource.observation.ExternalResourceChangeListener;
+import org.apache.sling.api.resource.observation.ResourceChange;
+import org.apache.sling.api.resource.observation.ResourceChangeListener;
 import org.apache.sling.commons.mime.MimeTypeService;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Modified;
 import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.metatype.annotations.AttributeDefinition;
 import org.osgi.service.metatype.annotations.Designate;
 import org.osgi.service.metatype.annotations.ObjectClassDefinition;
 
 import javax.activation.MimeType;
-
-@Component(service = ComputedProperty.class)
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Component(
+        service = {ComputedProperty.class, ResourceChangeListener.class},
+        property = {
+                ResourceChangeListener.PATHS + "=" + AssetTypeImpl.APPS_MIME_TYPE_LOOKUP_PATH,
+                ResourceChangeListener.PATHS + "=" + AssetTypeImpl.LIBS_MIME_TYPE_LOOKUP_PATH,
+                ResourceChangeListener.CHANGES + "=ADDED",
+                ResourceChangeListener.CHANGES + "=CHANGED",
+                ResourceChangeListener.CHANGES + "=REMOVED"
+        }
+)
 @Designate(ocd = AssetTypeImpl.Cfg.class)
-public class AssetTypeImpl extends AbstractComputedProperty<String> {
+public class AssetTypeImpl extends AbstractComputedProperty<String> implements ExternalResourceChangeListener {
     public static final String LABEL = "Asset Type";
     public static final String NAME = "type";
 
@@ -49,6 +67,17 @@ public class AssetTypeImpl extends AbstractComputedProperty<String> {
     public static final String AUDIO_LABEL = "AUDIO";
     public static final String UNKNOWN_LABEL = "";
 
+    private static final String MIME_TYPE_LOOKUP_PATH = "/mnt/overlay/dam/gui/content/assets/jcr:content/mimeTypeLookup";
+    static final String APPS_MIME_TYPE_LOOKUP_PATH = "/apps/dam/gui/content/assets/jcr:content/mimeTypeLookup";
+    static final String LIBS_MIME_TYPE_LOOKUP_PATH = "/libs/dam/gui/content/assets/jcr:content/mimeTypeLookup";
+
+    // Extension -> display MIME type looked up from the overlaid mimeTypeLookup; blank if the lookup has no label for the extension.
+    // The map is immutable and replaced when a new extension is looked up, as there are few distinct extensions.
+    private volatile Map<String, String> displayMimeTypes = Collections.emptyMap();
+
+    // Incremented on each reset of the display MIME types, so lookups started prior to a reset are not added
+    private volatile long generation = 0;
+
     private Cfg cfg;
 
     @Reference
@@ -71,16 +100,14 @@ public class AssetTypeImpl extends AbstractComputedProperty<String> {
 
     @Override
     public String get(Asset asset) {
-        final ResourceResolver resourceResolver = asset.adaptTo(Resource.class).getResourceResolver();
         final String dcFormat = StringUtils.defaultIfBlank(asset.getMimeType(), "");
 
         final String ext = StringUtils.defaultIfBlank(dcFormat.substring(dcFormat.lastIndexOf('/') + 1, dcFormat.length()), "");
-        final Resource lookedupResource = resourceResolver.getResource("/mnt/overlay/dam/gui/content/assets/jcr:content/mimeTypeLookup");
 
-        String displayMimeType = null;
+        String displayMimeType = displayMimeTypes.get(ext);
 
-        if (lookedupResource != null && !ResourceUtil.isNonExistingResource(lookedupResource)) {
-            displayMimeType = UIHelper.lookupMimeType(ext, lookedupResource, true);
+        if (displayMimeType == null) {
+            displayMimeType = lookupDisplayMimeType(asset.adaptTo(Resource.class).getResourceResolver(), ext);
         }
 
         if (StringUtils.isBlank(displayMimeType)) {
@@ -104,9 +131,49 @@ public class AssetTypeImpl extends AbstractComputedProperty<String> {
         return StringUtils.defaultIfBlank(displayMimeType, cfg.unknownLabel());
     }
 
+    /**
+     * Looks up the display MIME type for the extension from the overlaid mimeTypeLookup, and adds it to the display MIME types.
+     */
+    private String lookupDisplayMimeType(ResourceResolver resourceResolver, String ext) {
+        final long lookupGeneration = generation;
+        final Resource lookedupResource = resourceResolver.getResource(MIME_TYPE_LOOKUP_PATH);
+
+        if (lookedupResource == null || ResourceUtil.isNonExistingResource(lookedupResource)) {
+            // Not added, as the lookup may only be unreadable by this resource resolver
+            return "";
+        }
+
+        final String displayMimeType = StringUtils.defaultString(UIHelper.lookupMimeType(ext, lookedupResource, true));
+
+        synchronized (this) {
+            if (lookupGeneration != generation) {
+                return displayMimeType;
+            }
+
+            final Map<String, String> updated = new HashMap<>(displayMimeTypes);
+            updated.put(ext, displayMimeType);
+            displayMimeTypes = ImmutableMap.copyOf(updated);
+        }
+
+        return displayMimeType;
+    }
+
+    /**
+     * Reloads the display MIME types when the mimeTypeLookup is changed in /apps or /libs.
+     * Synchronized with the lookup, so a lookup started prior to the change cannot add a display MIME type resolved from the old mimeTypeLookup.
+     */
+    @Override
+    public synchronized void onChange(List<ResourceChange> changes) {
+        generation++;
+        displayMimeTypes = Collections.emptyMap();
+    }
+
     @Activate
-    protected void activate(Cfg cfg) {
+    @Modified
+    protected synchronized void activate(Cfg cfg) {
         this.cfg = cfg;
+        this.generation++;
+        this.displayMimeTypes = Collections.emptyMap();
     }
 
     @ObjectClassDefinition(name = "Asset Share Commons - Computed Property - Asset Type")
@@ -23,6 +23,7 @@ import com.adobe.aem.commons.assetshare.content.properties.AbstractComputedPrope
 import com.adobe.aem.commons.assetshare.content.properties.ComputedProperty;
 import com.day.cq.dam.api.Asset;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.sling.api.SlingHttpServletRequest;
 import org.apache.sling.api.resource.Resource;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
@@ -30,6 +31,11 @@ import org.osgi.service.metatype.annotations.AttributeDefinition;
 import org.osgi.service.metatype.annotations.Designate;
 import org.osgi.service.metatype.annotations.ObjectClassDefinition;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 @Component(service = ComputedProperty.class)
 @Designate(ocd = LicenseImpl.Cfg.class)
 public class LicenseImpl extends AbstractComputedProperty<String> {
@@ -54,15 +60,44 @@ public class LicenseImpl extends AbstractComputedProperty<String> {
 
     @Override
     public String get(Asset asset) {
+        return getLicense(asset, new HashMap<>());
+    }
+
+    @Override
+    public boolean isBatchable() {
+        return true;
+    }
+
+    /**
+     * Checks each distinct license path once for all the assets, as many assets typically share a license.
+     */
+    @Override
+    public Map<String, String> getAll(Collection<Asset> assets, SlingHttpServletRequest request) {
+        final Map<String, String> values = new LinkedHashMap<>();
+        final Map<String, String> licenses = new HashMap<>();
+
+        for (final Asset asset : assets) {
+            values.put(asset.getPath(), getLicense(asset, licenses));
+        }
+
+        return values;
+    }
+
+    /**
+     * @param asset the asset.
+     * @param licenses the licenses checked so far, keyed by the license path.
+     * @return the asset's license, or null if it has none.
+     */
+    private String getLicense(Asset asset, Map<String, String> licenses) {
         final String licensePath = StringUtils.trimToNull(getMetadataProperties(asset).get("xmpRights:WebStatement", String.class));
         if (licensePath != null) {
             if (StringUtils.startsWith(licensePath, "/") && !StringUtils.startsWith(licensePath, "//")) {
                 // Pointing to a resource in AEM; Check to ensure it exists
-                final Resource licenseResource = asset.adaptTo(Resource.class).getResourceResolver().resolve(licensePath);
+                return licenses.computeIfAbsent(licensePath, key -> {
+                    final Resource licenseResource = asset.adaptTo(Resource.class).getResourceResolver().resolve(key);
 
-                if (licenseResource != null) {
-                    return licensePath;
-                }
+                    return licenseResource != null ? key : null;
+                });
             } else {
                 // Not an absolute path to a resource in AEM; This may be a external web page.
                 return licensePath;
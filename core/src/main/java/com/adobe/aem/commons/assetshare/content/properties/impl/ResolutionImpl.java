@@ -33,6 +33,8 @@ import org.osgi.service.metatype.annotations.ObjectClassDefinition;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Map;
+
 @Component(service = ComputedProperty.class)
 @Designate(ocd = ResolutionImpl.Cfg.class)
 public class ResolutionImpl extends AbstractComputedProperty<String> {
@@ -63,21 +65,42 @@ public class ResolutionImpl extends AbstractComputedProperty<String> {
         return cfg.types();
     }
 
+    @Override
+    public String[] getDependencies() {
+        return new String[]{WidthImpl.NAME, HeightImpl.NAME};
+    }
+
     @Override
     public String get(Asset asset, SlingHttpServletRequest request) {
-        String resolution = "";
         if (width != null && height != null) {
-            Long widthLong = width.get(asset, request);
-            Long heightLong = height.get(asset, request);
-            if (widthLong != null && heightLong != null) {
-                resolution = UIHelper.getResolutionLabel(widthLong, heightLong, request);
-                resolution = resolution.replaceAll(",", "");
-            }
+            return getResolution(width.get(asset, request), height.get(asset, request), request);
+        }
+
+        return "";
+    }
+
+    /**
+     * Uses the width and height already computed for the asset, rather than reading the asset's metadata again.
+     */
+    @Override
+    public String get(Asset asset, SlingHttpServletRequest request, Map<String, Object> dependencies) {
+        return getResolution(toLong(dependencies.get(WidthImpl.NAME)), toLong(dependencies.get(HeightImpl.NAME)), request);
+    }
+
+    private String getResolution(Long widthLong, Long heightLong, SlingHttpServletRequest request) {
+        String resolution = "";
+        if (widthLong != null && heightLong != null) {
+            resolution = UIHelper.getResolutionLabel(widthLong, heightLong, request);
+            resolution = resolution.replaceAll(",", "");
         }
 
         return resolution;
     }
 
+    private Long toLong(Object value) {
+        return value instanceof Number ? ((Number) value).longValue() : null;
+    }
+
     @Activate
     protected void activate(Cfg cfg) {
         this.cfg = cfg;
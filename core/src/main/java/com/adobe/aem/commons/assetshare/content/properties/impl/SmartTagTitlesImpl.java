@@ -25,6 +25,7 @@ import java.util.stream.Collectors;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.sling.api.SlingHttpServletRequest;
 import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ValueMap;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.metatype.annotations.AttributeDefinition;
@@ -47,6 +48,8 @@ public class SmartTagTitlesImpl extends AbstractComputedProperty<List<String>> {
     public static final String PN_SMART_TAG_CONFIDENCE = "confidence";
     public static final String REL_PATH_SMART_TAGS_RESOURCE = "jcr:content/metadata/predictedTags";
 
+    private static final Comparator<SmartTag> SMART_TAGS_BY_CONFIDENCE = (smartTag1, smartTag2) -> Double.compare(smartTag1.confidence, smartTag2.confidence);
+
     private Cfg cfg;
 
     @Override
@@ -66,18 +69,15 @@ public class SmartTagTitlesImpl extends AbstractComputedProperty<List<String>> {
 
     @Override
     public List<String> get(Asset asset, SlingHttpServletRequest request) {
-        List<String> smartTagTitles = new ArrayList<>();
-
         final Resource smartTagsResource = getSmartTagsResource(asset);
 
-        if (smartTagsResource != null) {
-            smartTagTitles = getSmartTagsByConfidence(smartTagsResource).stream()
-                    .map(r -> r.getValueMap().get(PN_SMART_TAG_NAME, String.class))
-                    .filter(StringUtils::isNotBlank)
-                    .collect(Collectors.toList());
+        if (smartTagsResource == null) {
+            return new ArrayList<>();
         }
 
-        return smartTagTitles;
+        return getSmartTagsByConfidence(smartTagsResource).stream()
+                .map(smartTag -> smartTag.name)
+                .collect(Collectors.toList());
     }
 
     private Resource getSmartTagsResource(final Asset asset) {
@@ -94,15 +94,42 @@ public class SmartTagTitlesImpl extends AbstractComputedProperty<List<String>> {
         return resource.getChild(REL_PATH_SMART_TAGS_RESOURCE);
     }
 
-    private Collection<Resource> getSmartTagsByConfidence(final Resource smartTagsResource) {
-        final List<Resource> smartTagResources = new ArrayList<>();
-
-        smartTagsResource.listChildren().forEachRemaining(r -> { smartTagResources.add(r); });
+    /**
+     * Selects the smart tags with at least the minimum confidence, keeping only the max tags with the highest confidence while listing them (rather than sorting all of them).
+     *
+     * @param smartTagsResource the resource containing the smart tag resources.
+     * @return the selected smart tags, by descending confidence.
+     */
+    private List<SmartTag> getSmartTagsByConfidence(final Resource smartTagsResource) {
+        final int maxTags = cfg.max_tags();
+        final double minConfidence = cfg.min_confidence();
+
+        // The head of the queue is the selected smart tag with the lowest confidence
+        final PriorityQueue<SmartTag> selected = new PriorityQueue<>(SMART_TAGS_BY_CONFIDENCE);
+
+        final Iterator<Resource> smartTagResources = smartTagsResource.listChildren();
+
+        while (smartTagResources.hasNext()) {
+            final ValueMap properties = smartTagResources.next().getValueMap();
+            final String name = properties.get(PN_SMART_TAG_NAME, String.class);
+            final double confidence = properties.get(PN_SMART_TAG_CONFIDENCE, 0d);
+
+            if (StringUtils.isBlank(name) || confidence < minConfidence) {
+                continue;
+            }
+
+            if (maxTags <= 0 || selected.size() < maxTags) {
+                selected.add(new SmartTag(name, confidence));
+            } else if (confidence > selected.peek().confidence) {
+                selected.poll();
+                selected.add(new SmartTag(name, confidence));
+            }
+        }
 
-        // Sort the smart tag resources by confidence score
-        Collections.sort(smartTagResources, new SmartTagsConfidenceComparator());
+        final List<SmartTag> smartTags = new ArrayList<>(selected);
+        smartTags.sort(SMART_TAGS_BY_CONFIDENCE.reversed());
 
-        return smartTagResources;
+        return smartTags;
     }
 
     @Activate
@@ -123,15 +150,27 @@ public class SmartTagTitlesImpl extends AbstractComputedProperty<List<String>> {
                 description = "Defines the type of data this exposes. This classification allows for intelligent exposure of Computed Properties in DataSources, etc."
         )
         String[] types() default {Types.METADATA};
+
+        @AttributeDefinition(
+                name = "Minimum confidence",
+                description = "Smart tags with a lower confidence score (0 to 1) are not listed."
+        )
+        double min_confidence() default 0d;
+
+        @AttributeDefinition(
+                name = "Max tags",
+                description = "The maximum number of smart tags listed, with the highest confidence first. Set to 0 to list all smart tags."
+        )
+        int max_tags() default 0;
     }
 
-    private class SmartTagsConfidenceComparator implements Comparator<Resource> {
-        @Override
-        public int compare(final Resource o1, final Resource o2) {
-            final Double confidence1 =  o1.getValueMap().get(PN_SMART_TAG_CONFIDENCE, 0d);
-            final Double confidence2 =  o2.getValueMap().get(PN_SMART_TAG_CONFIDENCE, 0d);
+    private static final class SmartTag {
+        private final String name;
+        private final double confidence;
 
-            return confidence1.compareTo(confidence2);
+        private SmartTag(final String name, final double confidence) {
+            this.name = name;
+            this.confidence = confidence;
         }
     }
 }
\ No newline at end of file
@@ -19,25 +19,30 @@
 
 package com.adobe.aem.commons.assetshare.content.properties.impl;
 
+import com.adobe.aem.commons.assetshare.content.impl.cache.TagTitleCache;
 import com.adobe.aem.commons.assetshare.content.properties.AbstractComputedProperty;
 import com.adobe.aem.commons.assetshare.content.properties.ComputedProperty;
 import com.day.cq.dam.api.Asset;
-import com.day.cq.tagging.Tag;
-import com.day.cq.tagging.TagManager;
+import com.day.cq.tagging.TagConstants;
 import com.day.cq.wcm.api.Page;
 import com.day.cq.wcm.api.components.ComponentContext;
 import org.apache.sling.api.SlingHttpServletRequest;
 import org.apache.sling.api.resource.Resource;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.metatype.annotations.AttributeDefinition;
 import org.osgi.service.metatype.annotations.Designate;
 import org.osgi.service.metatype.annotations.ObjectClassDefinition;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 
 @Component(service = ComputedProperty.class)
 @Designate(ocd = TagTitlesImpl.Cfg.class)
@@ -46,6 +51,9 @@ public class TagTitlesImpl extends AbstractComputedProperty<List<String>> {
     public static final String NAME = "tagTitles";
     private Cfg cfg;
 
+    @Reference
+    private TagTitleCache tagTitleCache;
+
     @Override
     public String getName() {
         return NAME;
@@ -63,23 +71,58 @@ public class TagTitlesImpl extends AbstractComputedProperty<List<String>> {
 
     @Override
     public List<String> get(Asset asset, SlingHttpServletRequest request) {
-        final List<String> tagLabels = new ArrayList<>();
         final Resource metadataResource = asset.adaptTo(Resource.class).getChild("jcr:content/metadata");
-        final TagManager tagManager = metadataResource.getResourceResolver().adaptTo(TagManager.class);
 
-        if (metadataResource == null || tagManager == null) {
+        return getTagTitles(metadataResource, getLocale(request), new HashMap<>());
+    }
+
+    @Override
+    public boolean isBatchable() {
+        return true;
+    }
+
+    /**
+     * Resolves the locale once, and the title of each distinct tag once, for all the assets.
+     */
+    @Override
+    public Map<String, List<String>> getAll(Collection<Asset> assets, SlingHttpServletRequest request) {
+        final Map<String, List<String>> values = new LinkedHashMap<>();
+        final Map<String, String> tagTitles = new HashMap<>();
+        final Locale locale = getLocale(request);
+
+        for (final Asset asset : assets) {
+            final Resource metadataResource = asset.adaptTo(Resource.class).getChild("jcr:content/metadata");
+
+            values.put(asset.getPath(), getTagTitles(metadataResource, locale, tagTitles));
+        }
+
+        return values;
+    }
+
+    /**
+     * @param metadataResource the asset's metadata resource.
+     * @param locale the locale of the titles.
+     * @param tagTitles the titles of the tags looked up so far, keyed by tag ID; tags that cannot be resolved map to null.
+     * @return the sorted titles of the asset's tags.
+     */
+    private List<String> getTagTitles(Resource metadataResource, Locale locale, Map<String, String> tagTitles) {
+        final List<String> tagLabels = new ArrayList<>();
+
+        if (metadataResource == null) {
             return tagLabels;
         }
 
-        final Tag[] tags = tagManager.getTags(metadataResource);
+        final String[] tagIds = metadataResource.getValueMap().get(TagConstants.PN_TAGS, new String[]{});
 
-        if (tags != null) {
-            final ComponentContext componentContext = getComponentContext(request);
-            final Page currentPage = componentContext != null ? componentContext.getPage() : null;
-            final Locale locale = currentPage == null ? request.getLocale() : currentPage.getLanguage(false);
+        for (final String tagId : tagIds) {
+            if (!tagTitles.containsKey(tagId)) {
+                tagTitles.put(tagId, tagTitleCache.getTitle(metadataResource.getResourceResolver(), tagId, locale));
+            }
+
+            final String tagTitle = tagTitles.get(tagId);
 
-            for (final Tag tag : tags) {
-                tagLabels.add(tag.getTitle(locale));
+            if (tagTitle != null) {
+                tagLabels.add(tagTitle);
             }
         }
 
@@ -88,6 +131,13 @@ public class TagTitlesImpl extends AbstractComputedProperty<List<String>> {
         return tagLabels;
     }
 
+    private Locale getLocale(SlingHttpServletRequest request) {
+        final ComponentContext componentContext = getComponentContext(request);
+        final Page currentPage = componentContext != null ? componentContext.getPage() : null;
+
+        return currentPage == null ? request.getLocale() : currentPage.getLanguage(false);
+    }
+
     @Activate
     protected void activate(Cfg cfg) {
         this.cfg = cfg;
@@ -16,13 +16,16 @@
 
 package com.adobe.aem.commons.assetshare.content.properties.impl;
 
+import com.adobe.aem.commons.assetshare.content.impl.cache.RenditionManifest;
+import com.adobe.aem.commons.assetshare.content.impl.cache.RenditionManifestCache;
 import com.adobe.aem.commons.assetshare.content.properties.AbstractComputedProperty;
 import com.adobe.aem.commons.assetshare.content.properties.ComputedProperty;
 import com.day.cq.dam.api.Asset;
-import com.day.cq.dam.api.Rendition;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.sling.api.SlingHttpServletRequest;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.metatype.annotations.AttributeDefinition;
 import org.osgi.service.metatype.annotations.Designate;
 import org.osgi.service.metatype.annotations.ObjectClassDefinition;
@@ -38,6 +41,9 @@ public class ThumbnailImpl extends AbstractComputedProperty<String> {
 
     private Cfg cfg;
 
+    @Reference
+    private RenditionManifestCache renditionManifestCache;
+
     @Override
     public String getName() {
         return NAME;
@@ -60,15 +66,25 @@ public class ThumbnailImpl extends AbstractComputedProperty<String> {
 
     @Override
     public String get(final Asset asset) {
-        Rendition rendition = asset.getRendition(THUMBNAIL_RENDITION_NAME);
+        return get(asset, null);
+    }
 
-        if (rendition == null && asset.getImagePreviewRendition() != null) {
-            rendition = asset.getImagePreviewRendition();
-        }
+    @Override
+    public String get(final Asset asset, final SlingHttpServletRequest request) {
+        final RenditionManifest manifest = renditionManifestCache.get(asset, request);
+        final RenditionManifest.Entry thumbnail = manifest.get(THUMBNAIL_RENDITION_NAME);
 
         // Ensure the rendition is of mime/type image; else the thumbnail will not be able to render
-        if (rendition != null && StringUtils.startsWith(rendition.getMimeType(), "image/")) {
-            return StringUtils.replace(rendition.getPath(), " ", "%20");
+        if (thumbnail != null) {
+            if (StringUtils.startsWith(thumbnail.getMimeType(), "image/")) {
+                return StringUtils.replace(thumbnail.getPath(), " ", "%20");
+            }
+        } else {
+            final RenditionManifest.Entry rendition = manifest.getImagePreview();
+
+            if (rendition != null && StringUtils.startsWith(rendition.getMimeType(), "image/")) {
+                return StringUtils.replace(rendition.getPath(), " ", "%20");
+            }
         }
 
         return "";
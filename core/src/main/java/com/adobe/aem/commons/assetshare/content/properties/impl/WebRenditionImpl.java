@@ -19,15 +19,16 @@
 
 package com.adobe.aem.commons.assetshare.content.properties.impl;
 
+import com.adobe.aem.commons.assetshare.content.impl.cache.RenditionManifest;
+import com.adobe.aem.commons.assetshare.content.impl.cache.RenditionManifestCache;
 import com.adobe.aem.commons.assetshare.content.properties.AbstractComputedProperty;
 import com.adobe.aem.commons.assetshare.content.properties.ComputedProperty;
 import com.day.cq.dam.api.Asset;
-import com.day.cq.dam.api.Rendition;
-import com.day.cq.dam.commons.util.DamUtil;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.sling.api.SlingHttpServletRequest;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.metatype.annotations.AttributeDefinition;
 import org.osgi.service.metatype.annotations.Designate;
 import org.osgi.service.metatype.annotations.ObjectClassDefinition;
@@ -43,6 +44,9 @@ public class WebRenditionImpl extends AbstractComputedProperty<String> {
 
     private Cfg cfg;
 
+    @Reference
+    private RenditionManifestCache renditionManifestCache;
+
     @Override
     public String getName() {
         return NAME;
@@ -60,14 +64,15 @@ public class WebRenditionImpl extends AbstractComputedProperty<String> {
 
     @Override
     public String get(Asset asset, SlingHttpServletRequest request) {
-        final Rendition rendition = DamUtil.getBestFitRendition(1280, asset.getRenditions());
+        final RenditionManifest renditionManifest = renditionManifestCache.get(asset, request);
+        final RenditionManifest.Entry rendition = renditionManifest.getBestFit(1280);
         String path = "";
 
         if (rendition != null) {
             path = rendition.getPath();
         } else {
-            if (asset.getOriginal() != null) {
-                path = asset.getOriginal().getPath();
+            if (renditionManifest.getOriginal() != null) {
+                path = renditionManifest.getOriginal().getPath();
             }
         }
 
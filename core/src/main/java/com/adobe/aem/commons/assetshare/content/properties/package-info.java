@@ -14,7 +14,7 @@
  *
  */
 
-@Version("1.1.0")
+@Version("1.2.0")
 package com.adobe.aem.commons.assetshare.content.properties;
 
 import org.osgi.annotation.versioning.Version;
@@ -29,7 +29,7 @@ public interface SearchSafety {
     // Checks if a Query Builder query is safe (Xpath, SQL2)
     boolean isSafe(ResourceResolver resourceResolver, PredicateGroup predicateGroup) throws RepositoryException;
 
-    // Checks if a Query Builder query is safe (Xpath, SQL2)
+    // Checks if a Query Builder query is safe (Xpath, SQL2); the params are never down-scoped, so unsafe queries are not safe
     boolean isSafe(ResourceResolver resourceResolver, Map<String, String> queryBuilderParams) throws RepositoryException;
 
     // Checks if any native query is safe (Xpath, SQL2)
@@ -22,6 +22,7 @@ package com.adobe.aem.commons.assetshare.search.impl;
 import com.adobe.aem.commons.assetshare.search.Constants;
 import com.adobe.aem.commons.assetshare.search.Search;
 import com.adobe.aem.commons.assetshare.search.UnsafeSearchException;
+import com.adobe.aem.commons.assetshare.search.impl.timing.SearchTimer;
 import com.adobe.aem.commons.assetshare.search.providers.SearchProvider;
 import com.adobe.aem.commons.assetshare.search.results.Results;
 import com.adobe.aem.commons.assetshare.search.results.impl.results.EmptyResultsImpl;
@@ -81,6 +82,9 @@ public class SearchImpl implements Search {
 
     public Results getResults() {
         if (results == null) {
+            if (currentPage != null) {
+                SearchTimer.setSearchPage(request, currentPage.getPath());
+            }
 
             for (final SearchProvider searchProvider : searchProviders) {
                 if (searchProvider.accepts(request)) {
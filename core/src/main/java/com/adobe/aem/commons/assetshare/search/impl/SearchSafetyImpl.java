@@ -20,37 +20,363 @@
 package com.adobe.aem.commons.assetshare.search.impl;
 
 import com.adobe.aem.commons.assetshare.search.SearchSafety;
+import com.adobe.aem.commons.assetshare.search.providers.impl.Sql2QueryCompiler;
+import com.adobe.granite.jmx.annotation.AnnotatedStandardMBean;
+import com.day.cq.search.Predicate;
+import com.day.cq.search.PredicateConverter;
 import com.day.cq.search.PredicateGroup;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
 import org.apache.sling.api.resource.ResourceResolver;
+import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Modified;
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.Designate;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
+import org.osgi.service.metatype.annotations.Option;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+import javax.jcr.Value;
+import javax.jcr.query.Query;
+import javax.jcr.query.QueryManager;
+import javax.jcr.query.Row;
+import javax.jcr.query.RowIterator;
+import javax.management.DynamicMBean;
+import javax.management.NotCompliantMBeanException;
+import javax.management.openmbean.*;
+import java.util.Collections;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
-@Component
-public class SearchSafetyImpl implements SearchSafety {
+/**
+ * Checks searches by explaining their query plan with Oak, and treats plans that traverse the repository as unsafe.
+ *
+ * QueryBuilder searches are explained via their JCR-SQL2 equivalent (see Sql2QueryCompiler), as QueryBuilder does not expose its XPath statement prior to execution.
+ * This makes the verdict of a QueryBuilder search a heuristic: QueryBuilder executes an XPath statement, which Oak may plan differently than the JCR-SQL2 equivalent.
+ * Verdicts are cached by the structural fingerprint of the search (see Sql2QueryCompiler.getFingerprint(..)), so each distinct combination of predicates is only explained once.
+ *
+ * Oak explain cannot handle UNIONs in AEM 6.3 SP1 (fixed in AEM 6.4); searches that cannot be explained are allowed, unless configured otherwise.
+ */
+@Component(
+        service = {SearchSafety.class, DynamicMBean.class},
+        property = {
+                "jmx.objectname=com.adobe.aem.commons.assetshare:type=Search Safety"
+        }
+)
+@Designate(ocd = SearchSafetyImpl.Cfg.class)
+public class SearchSafetyImpl extends AnnotatedStandardMBean implements SearchSafety, SearchSafetyMBean {
+    private static final Logger log = LoggerFactory.getLogger(SearchSafetyImpl.class);
+
+    private static final String ACTION_LOG = "log";
+    private static final String ACTION_REJECT = "reject";
+    private static final String ACTION_DOWN_SCOPE = "down-scope";
+
+    private static final String EXPLAIN = "explain ";
+    private static final String COLUMN_PLAN = "plan";
 
+    private static final String[] VERDICT_ITEMS = {"fingerprint", "verdict", "structure", "plan", "checks", "rejections", "downScopes"};
+
+    private final AtomicLong checkCount = new AtomicLong();
+    private final AtomicLong rejectionCount = new AtomicLong();
+    private final AtomicLong downScopeCount = new AtomicLong();
+
+    private Cache<String, Verdict> verdicts;
+
+    private Cfg cfg;
+
+    public SearchSafetyImpl() throws NotCompliantMBeanException {
+        super(SearchSafetyMBean.class);
+    }
+
+    /**
+     * The queryBuilderParams cannot be down-scoped in place, so unsafe searches are never safe to execute as-is, even if the configured action is to down-scope.
+     *
+     * @param resourceResolver the resource resolver the search is executed under.
+     * @param queryBuilderParams the QueryBuilder search.
+     * @return true if the search may be executed.
+     * @throws RepositoryException
+     */
     @Override
     public boolean isSafe(ResourceResolver resourceResolver, Map<String, String> queryBuilderParams) throws RepositoryException {
-        return isSafe(resourceResolver, PredicateGroup.create(queryBuilderParams));
+        if (!cfg.enabled()) {
+            return true;
+        }
+
+        return enforce(getVerdict(resourceResolver, PredicateGroup.create(queryBuilderParams)), null);
     }
 
+    /**
+     * If the search is unsafe and the configured action is to down-scope, the predicateGroup's limit is reduced and its total is guessed, so the search stops reading as soon as a page of results is found.
+     *
+     * @param resourceResolver the resource resolver the search is executed under.
+     * @param predicateGroup the QueryBuilder search.
+     * @return true if the search may be executed.
+     * @throws RepositoryException
+     */
     @Override
     public boolean isSafe(ResourceResolver resourceResolver, PredicateGroup predicateGroup) throws RepositoryException {
-        /**
-         * Unfortunately because Oak explain cannot handle UNIONs in AEM 6.3 SP1, this time (fix in AEM 6.4) we cannot consistently check for safe queries, so for now we will not check at all.
-         * In the future this hook will be implemented to help ensure only safe queries are allow.
-         */
+        if (!cfg.enabled()) {
+            return true;
+        }
 
-         return true;
+        return enforce(getVerdict(resourceResolver, predicateGroup), predicateGroup);
     }
 
     @Override
     public boolean isSafe(ResourceResolver resourceResolver, String language, String statement) throws RepositoryException {
-        /**
-         * Unfortunately because Oak explain cannot handle UNIONs in AEM 6.3 SP1, (fix in AEM 6.4) we cannot consistently check for safe queries, so for now we will not check at all.
-         * In the future this hook will be implemented to help ensure only safe queries are allow.
-         */
-        return true;
+        if (!cfg.enabled()) {
+            return true;
+        }
+
+        checkCount.incrementAndGet();
+
+        final String fingerprint = DigestUtils.sha256Hex(language + "\n" + statement);
+        Verdict verdict = verdicts.getIfPresent(fingerprint);
+
+        if (verdict == null) {
+            verdict = new Verdict(fingerprint, statement, explain(resourceResolver.adaptTo(Session.class), language, statement, Collections.emptyMap()));
+            verdicts.put(fingerprint, verdict);
+        }
+
+        return enforce(verdict, null);
+    }
+
+    private Verdict getVerdict(final ResourceResolver resourceResolver, final PredicateGroup predicateGroup) throws RepositoryException {
+        checkCount.incrementAndGet();
+
+        final String structure = Sql2QueryCompiler.getFingerprint(PredicateConverter.createMap(predicateGroup));
+        final String fingerprint = DigestUtils.sha256Hex(structure);
+        Verdict verdict = verdicts.getIfPresent(fingerprint);
+
+        if (verdict == null) {
+            verdict = new Verdict(fingerprint, structure, explain(resourceResolver, predicateGroup));
+            verdicts.put(fingerprint, verdict);
+        }
+
+        return verdict;
+    }
+
+    private boolean enforce(final Verdict verdict, final PredicateGroup predicateGroup) {
+        verdict.checks.incrementAndGet();
+
+        if (Verdict.SAFE.equals(verdict.verdict)) {
+            return true;
+        } else if (Verdict.UNEXPLAINABLE.equals(verdict.verdict) && !cfg.reject_unexplainable()) {
+            return true;
+        } else if (Verdict.UNSAFE.equals(verdict.verdict) && ACTION_DOWN_SCOPE.equals(cfg.action()) && predicateGroup != null) {
+            downScope(predicateGroup);
+            verdict.downScopes.incrementAndGet();
+            downScopeCount.incrementAndGet();
+            log.info("Down-scoped unsafe search [ {} ] with query plan [ {} ]", verdict.fingerprint, verdict.plan);
+            return true;
+        } else if (ACTION_LOG.equals(cfg.action())) {
+            log.warn("Allowed {} search [ {} ] with query plan [ {} ]", verdict.verdict, verdict.fingerprint, verdict.plan);
+            return true;
+        }
+
+        verdict.rejections.incrementAndGet();
+        rejectionCount.incrementAndGet();
+        log.warn("Rejected {} search [ {} ] with query plan [ {} ]", verdict.verdict, verdict.fingerprint, verdict.plan);
+        return false;
+    }
+
+    private void downScope(final PredicateGroup predicateGroup) {
+        final long limit = NumberUtils.toLong(predicateGroup.get(Predicate.PARAM_LIMIT), cfg.down_scope_limit());
+
+        predicateGroup.set(Predicate.PARAM_LIMIT, String.valueOf(Math.min(Math.max(limit, 1), cfg.down_scope_limit())));
+        predicateGroup.set(Predicate.PARAM_GUESS_TOTAL, "true");
+    }
+
+    /**
+     * @param resourceResolver the resource resolver the search is executed under.
+     * @param predicateGroup the QueryBuilder search.
+     * @return the query plan of the search, or null if the search cannot be explained.
+     * @throws RepositoryException
+     */
+    private String explain(final ResourceResolver resourceResolver, final PredicateGroup predicateGroup) throws RepositoryException {
+        final Map<String, String> params = PredicateConverter.createMap(predicateGroup);
+        final Session session = resourceResolver.adaptTo(Session.class);
+
+        try {
+            final Sql2QueryCompiler.Template template = Sql2QueryCompiler.compile(params);
+            return explain(session, Query.JCR_SQL2, template.getStatement(), template.bind(params, session.getValueFactory()));
+        } catch (Sql2QueryCompiler.UnsupportedPredicateException e) {
+            log.debug("Search cannot be expressed as JCR-SQL2, and cannot be explained", e);
+            return null;
+        }
+    }
+
+    private String explain(final Session session, final String language, final String statement, final Map<String, Value> bindValues) throws RepositoryException {
+        final QueryManager queryManager = session.getWorkspace().getQueryManager();
+
+        try {
+            final Query query = queryManager.createQuery(EXPLAIN + statement, language);
+
+            for (final Map.Entry<String, Value> bindValue : bindValues.entrySet()) {
+                query.bindValue(bindValue.getKey(), bindValue.getValue());
+            }
+
+            final StringBuilder plan = new StringBuilder();
+            final RowIterator rows = query.execute().getRows();
+
+            while (rows.hasNext()) {
+                final Row row = rows.nextRow();
+                final Value value = row.getValue(COLUMN_PLAN);
+
+                if (value != null) {
+                    plan.append(value.getString());
+                }
+            }
+
+            log.debug("Explained statement [ {} ] with query plan [ {} ]", statement, plan);
+
+            return plan.toString();
+        } catch (RepositoryException e) {
+            log.debug("Could not explain statement [ {} ]", statement, e);
+            return null;
+        }
+    }
+
+    /** MBean Methods **/
+
+    @Override
+    public TabularData getVerdicts() throws OpenDataException {
+        final CompositeType verdictType = new CompositeType("verdict", "Search safety verdict",
+                VERDICT_ITEMS,
+                new String[]{"Structural fingerprint", "Verdict", "Query structure", "Query plan", "Checks", "Rejections", "Down-scopes"},
+                new OpenType[]{SimpleType.STRING, SimpleType.STRING, SimpleType.STRING, SimpleType.STRING, SimpleType.LONG, SimpleType.LONG, SimpleType.LONG});
+        final TabularDataSupport tabularData = new TabularDataSupport(new TabularType("verdicts", "Search safety verdicts", verdictType, new String[]{"fingerprint"}));
+
+        for (final Verdict verdict : verdicts.asMap().values()) {
+            tabularData.put(new CompositeDataSupport(verdictType, VERDICT_ITEMS, new Object[]{
+                    verdict.fingerprint,
+                    verdict.verdict,
+                    verdict.structure,
+                    StringUtils.defaultString(verdict.plan),
+                    verdict.checks.get(),
+                    verdict.rejections.get(),
+                    verdict.downScopes.get()}));
+        }
+
+        return tabularData;
+    }
+
+    @Override
+    public long getCheckCount() {
+        return checkCount.get();
+    }
+
+    @Override
+    public long getRejectionCount() {
+        return rejectionCount.get();
+    }
+
+    @Override
+    public long getDownScopeCount() {
+        return downScopeCount.get();
+    }
+
+    @Override
+    public void clear() {
+        verdicts.invalidateAll();
+        log.info("Cleared the Asset Share Commons search safety verdicts");
+    }
+
+    @Activate
+    @Modified
+    protected void activate(final Cfg cfg) {
+        this.cfg = cfg;
+        this.verdicts = CacheBuilder.newBuilder()
+                .maximumSize(cfg.max_size())
+                .expireAfterWrite(cfg.ttl(), TimeUnit.SECONDS)
+                .build();
+    }
+
+    private final class Verdict {
+        private static final String SAFE = "safe";
+        private static final String UNSAFE = "unsafe";
+        private static final String UNEXPLAINABLE = "unexplainable";
+
+        private final String fingerprint;
+        private final String structure;
+        private final String plan;
+        private final String verdict;
+
+        private final AtomicLong checks = new AtomicLong();
+        private final AtomicLong rejections = new AtomicLong();
+        private final AtomicLong downScopes = new AtomicLong();
+
+        private Verdict(final String fingerprint, final String structure, final String plan) {
+            this.fingerprint = fingerprint;
+            this.structure = structure;
+            this.plan = plan;
+
+            if (plan == null) {
+                this.verdict = UNEXPLAINABLE;
+            } else if (StringUtils.indexOfAny(plan, cfg.unsafe_plan_patterns()) >= 0) {
+                this.verdict = UNSAFE;
+            } else {
+                this.verdict = SAFE;
+            }
+        }
+    }
+
+    @ObjectClassDefinition(name = "Asset Share Commons - Search Safety")
+    public @interface Cfg {
+        @AttributeDefinition(
+                name = "Enabled",
+                description = "Explain the query plan of searches prior to executing them, and log, reject or down-scope searches whose plan is unsafe. "
+                        + "QueryBuilder searches are explained via their JCR-SQL2 equivalent rather than the XPath statement QueryBuilder executes, so their verdict is a heuristic."
+        )
+        boolean enabled() default false;
+
+        @AttributeDefinition(
+                name = "Action",
+                description = "What to do with unsafe searches. Logged searches are executed as-is. Down-scoped searches are limited to a single small page of results, so they stop reading as soon as it is filled.",
+                options = {
+                        @Option(label = "Log", value = ACTION_LOG),
+                        @Option(label = "Reject", value = ACTION_REJECT),
+                        @Option(label = "Down-scope", value = ACTION_DOWN_SCOPE)
+                }
+        )
+        String action() default ACTION_LOG;
+
+        @AttributeDefinition(
+                name = "Down-scope limit",
+                description = "The maximum number of results of a down-scoped search."
+        )
+        long down_scope_limit() default 20;
+
+        @AttributeDefinition(
+                name = "Unsafe plan patterns",
+                description = "Query plans containing any of these strings are unsafe."
+        )
+        String[] unsafe_plan_patterns() default {"/* traverse"};
+
+        @AttributeDefinition(
+                name = "Reject unexplainable searches",
+                description = "Treat searches whose query plan cannot be explained as unsafe."
+        )
+        boolean reject_unexplainable() default false;
+
+        @AttributeDefinition(
+                name = "Max verdicts",
+                description = "The maximum number of cached verdicts."
+        )
+        long max_size() default 1000;
+
+        @AttributeDefinition(
+                name = "Verdict time-to-live",
+                description = "The time in seconds a verdict is cached for; query plans change as indexes are added or changed."
+        )
+        long ttl() default 3600;
     }
-}
\ No newline at end of file
+}
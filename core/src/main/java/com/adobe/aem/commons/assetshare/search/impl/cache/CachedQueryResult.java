@@ -0,0 +1,148 @@
+/*
+ * Asset Share Commons
+ *
+ * Copyright (C) 2018 Adobe
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.adobe.aem.commons.assetshare.search.impl.cache;
+
+import com.day.cq.search.result.SearchResult;
+
+import java.util.*;
+
+/**
+ * An immutable, resource resolver-independent copy of a QueryBuilder SearchResult (or of the equivalent JCR query result).
+ *
+ * Only the hit paths and the paging heuristics are retained; the hits must be re-resolved (and adapted) by each consumer using its own ResourceResolver.
+ */
+public final class CachedQueryResult {
+    private final List<String> hitPaths;
+    private final List<String> searchPaths;
+    private final long totalMatches;
+    private final long startIndex;
+    private final long nextOffset;
+    private final boolean more;
+    private final long executionTimeMillis;
+    private final String queryStatement;
+    private final Map<String, Map<String, Long>> facets;
+    private final boolean partial;
+
+    /**
+     * @param hitPaths the paths of the hits, in the order they were returned by the query.
+     * @param searchResult the QueryBuilder search result the hit paths were collected from.
+     * @param searchPaths the path restrictions of the query; changes under these paths invalidate this result. An empty collection means the result is invalidated by any change.
+     */
+    public CachedQueryResult(final List<String> hitPaths, final SearchResult searchResult, final Collection<String> searchPaths) {
+        this(hitPaths, searchResult, null, searchPaths);
+    }
+
+    /**
+     * @param hitPaths the paths of the hits, in the order they were returned by the query.
+     * @param searchResult the QueryBuilder search result the hit paths were collected from.
+     * @param facets the facet counts extracted by the query, keyed by predicate path and then by value; null if facets were not extracted.
+     * @param searchPaths the path restrictions of the query; changes under these paths invalidate this result. An empty collection means the result is invalidated by any change.
+     */
+    public CachedQueryResult(final List<String> hitPaths, final SearchResult searchResult, final Map<String, Map<String, Long>> facets, final Collection<String> searchPaths) {
+        this.facets = facets != null ? Collections.unmodifiableMap(new LinkedHashMap<>(facets)) : null;
+        this.partial = false;
+        this.hitPaths = Collections.unmodifiableList(new ArrayList<>(hitPaths));
+        this.searchPaths = Collections.unmodifiableList(new ArrayList<>(searchPaths));
+        this.totalMatches = searchResult.getTotalMatches();
+        this.startIndex = searchResult.getStartIndex();
+        this.nextOffset = searchResult.getNextPage() != null ? searchResult.getNextPage().getStart() : -1;
+        this.more = searchResult.hasMore();
+        this.executionTimeMillis = searchResult.getExecutionTimeMillis();
+        this.queryStatement = searchResult.getQueryStatement();
+    }
+
+    /**
+     * @param hitPaths the paths of the hits, in the order they were returned by the query.
+     * @param totalMatches the (possibly guessed) total number of matches.
+     * @param startIndex the offset of the first hit.
+     * @param nextOffset the offset of the next page of hits, or -1 if there is no next page.
+     * @param more true if the query has more matches than totalMatches.
+     * @param partial true if reading the query's matches was stopped by a time budget or read limit, before the page of hits was collected.
+     * @param executionTimeMillis the time taken to execute the query in milliseconds.
+     * @param queryStatement the executed query statement.
+     * @param searchPaths the path restrictions of the query; changes under these paths invalidate this result. An empty collection means the result is invalidated by any change.
+     */
+    public CachedQueryResult(final List<String> hitPaths,
+                             final long totalMatches,
+                             final long startIndex,
+                             final long nextOffset,
+                             final boolean more,
+                             final boolean partial,
+                             final long executionTimeMillis,
+                             final String queryStatement,
+                             final Collection<String> searchPaths) {
+        this.facets = null;
+        this.partial = partial;
+        this.hitPaths = Collections.unmodifiableList(new ArrayList<>(hitPaths));
+        this.searchPaths = Collections.unmodifiableList(new ArrayList<>(searchPaths));
+        this.totalMatches = totalMatches;
+        this.startIndex = startIndex;
+        this.nextOffset = nextOffset;
+        this.more = more;
+        this.executionTimeMillis = executionTimeMillis;
+        this.queryStatement = queryStatement;
+    }
+
+    public List<String> getHitPaths() {
+        return hitPaths;
+    }
+
+    public List<String> getSearchPaths() {
+        return searchPaths;
+    }
+
+    public long getTotalMatches() {
+        return totalMatches;
+    }
+
+    public long getStartIndex() {
+        return startIndex;
+    }
+
+    public long getNextOffset() {
+        return nextOffset;
+    }
+
+    public boolean hasMore() {
+        return more;
+    }
+
+    /**
+     * @return true if reading the query's matches was stopped early; partial results must not be cached.
+     */
+    public boolean isPartial() {
+        return partial;
+    }
+
+    public long getExecutionTimeMillis() {
+        return executionTimeMillis;
+    }
+
+    public String getQueryStatement() {
+        return queryStatement;
+    }
+
+    /**
+     * @return the facet counts keyed by predicate path and then by value, or null if the query did not extract facets.
+     */
+    public Map<String, Map<String, Long>> getFacets() {
+        return facets;
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Asset Share Commons
+ *
+ * Copyright (C) 2018 Adobe
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.adobe.aem.commons.assetshare.search.impl.cache;
+
+import com.day.cq.search.PredicateGroup;
+import org.apache.sling.api.resource.ResourceResolver;
+
+import javax.jcr.RepositoryException;
+
+/**
+ * A node-wide cache of QueryBuilder hit lists, keyed on the user, or optionally shared across all users with the same set of principals.
+ */
+public interface QueryResultsCache {
+    /**
+     * @return true if the cache is enabled and should be consulted.
+     */
+    boolean isEnabled();
+
+    /**
+     * Derives the cache key for a query; the key is composed of the normalized QueryBuilder parameters and a hash of the resourceResolver's user ID, or of the principals the user is a member of if results are shared across users.
+     *
+     * @param resourceResolver the resource resolver the query will be executed under.
+     * @param predicateGroup the predicate group that will be executed.
+     * @return the cache key.
+     * @throws RepositoryException if the principals of the resourceResolver's user cannot be collected.
+     */
+    String getCacheKey(ResourceResolver resourceResolver, PredicateGroup predicateGroup) throws RepositoryException;
+
+    /**
+     * @param cacheKey the cache key as derived by getCacheKey(..).
+     * @return the cached query result, or null if the cache does not hold an entry for this key.
+     */
+    CachedQueryResult get(String cacheKey);
+
+    /**
+     * @param cacheKey the cache key as derived by getCacheKey(..).
+     * @param cachedQueryResult the query result to cache.
+     */
+    void put(String cacheKey, CachedQueryResult cachedQueryResult);
+}
@@ -0,0 +1,282 @@
+/*
+ * Asset Share Commons
+ *
+ * Copyright (C) 2018 Adobe
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.adobe.aem.commons.assetshare.search.impl.cache;
+
+import com.adobe.granite.jmx.annotation.AnnotatedStandardMBean;
+import com.day.cq.search.PredicateConverter;
+import com.day.cq.search.PredicateGroup;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.jackrabbit.api.JackrabbitSession;
+import org.apache.jackrabbit.api.security.user.Authorizable;
+import org.apache.jackrabbit.api.security.user.Group;
+import org.apache.jackrabbit.api.security.user.User;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.api.resource.observation.ExternalResourceChangeListener;
+import org.apache.sling.api.resource.observation.ResourceChange;
+import org.apache.sling.api.resource.observation.ResourceChangeListener;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Modified;
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.Designate;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+import javax.management.DynamicMBean;
+import javax.management.NotCompliantMBeanException;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Component(
+        service = {QueryResultsCache.class, ResourceChangeListener.class, DynamicMBean.class},
+        property = {
+                "jmx.objectname=com.adobe.aem.commons.assetshare:type=Search Results Cache",
+                ResourceChangeListener.CHANGES + "=ADDED",
+                ResourceChangeListener.CHANGES + "=CHANGED",
+                ResourceChangeListener.CHANGES + "=REMOVED"
+        }
+)
+@Designate(ocd = QueryResultsCacheImpl.Cfg.class)
+public class QueryResultsCacheImpl extends AnnotatedStandardMBean implements QueryResultsCache, QueryResultsCacheMBean, ExternalResourceChangeListener {
+    private static final Logger log = LoggerFactory.getLogger(QueryResultsCacheImpl.class);
+
+    private static final String DEFAULT_PATH = "/content/dam";
+    private static final long DEFAULT_MAX_SIZE = 1000;
+    private static final long DEFAULT_TTL = 300;
+
+    private final AtomicLong invalidationCount = new AtomicLong();
+
+    private Cache<String, CachedQueryResult> cache;
+
+    private Cfg cfg;
+
+    public QueryResultsCacheImpl() throws NotCompliantMBeanException {
+        super(QueryResultsCacheMBean.class);
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return cfg.enabled();
+    }
+
+    @Override
+    public String getCacheKey(final ResourceResolver resourceResolver, final PredicateGroup predicateGroup) throws RepositoryException {
+        final Map<String, String> sortedParams = new TreeMap<>(PredicateConverter.createMap(predicateGroup));
+        final StringBuilder sb = new StringBuilder(getPrincipalsHash(resourceResolver));
+
+        for (final Map.Entry<String, String> parameter : sortedParams.entrySet()) {
+            sb.append('\n').append(parameter.getKey()).append('=').append(parameter.getValue());
+        }
+
+        return DigestUtils.sha256Hex(sb.toString());
+    }
+
+    @Override
+    public CachedQueryResult get(final String cacheKey) {
+        return cache.getIfPresent(cacheKey);
+    }
+
+    @Override
+    public void put(final String cacheKey, final CachedQueryResult cachedQueryResult) {
+        cache.put(cacheKey, cachedQueryResult);
+    }
+
+    @Override
+    public void onChange(final List<ResourceChange> changes) {
+        if (cache.size() == 0) {
+            return;
+        }
+
+        // The cached results are indexed by their search paths once per batch of changes, so each change only looks up the search paths above and below it
+        final NavigableMap<String, List<String>> keysBySearchPath = new TreeMap<>();
+        final Set<String> affectedKeys = new HashSet<>();
+
+        for (final Map.Entry<String, CachedQueryResult> entry : cache.asMap().entrySet()) {
+            final List<String> searchPaths = entry.getValue().getSearchPaths();
+
+            for (final String searchPath : searchPaths) {
+                final String normalizedSearchPath = StringUtils.removeEnd(searchPath, "/");
+
+                if (normalizedSearchPath.isEmpty()) {
+                    // The search covers the whole repository
+                    affectedKeys.add(entry.getKey());
+                } else {
+                    keysBySearchPath.computeIfAbsent(normalizedSearchPath, key -> new ArrayList<>()).add(entry.getKey());
+                }
+            }
+
+            if (searchPaths.isEmpty()) {
+                // Unscoped searches are affected by every change
+                affectedKeys.add(entry.getKey());
+            }
+        }
+
+        final Set<String> changedPaths = new HashSet<>();
+
+        for (final ResourceChange change : changes) {
+            changedPaths.add(StringUtils.removeEnd(change.getPath(), "/"));
+        }
+
+        for (final String changedPath : changedPaths) {
+            // Search paths at or above the changed resource
+            for (String path = changedPath; !path.isEmpty(); path = StringUtils.substringBeforeLast(path, "/")) {
+                affectedKeys.addAll(keysBySearchPath.getOrDefault(path, Collections.emptyList()));
+            }
+
+            // Search paths below the changed resource ('0' is the character after '/')
+            for (final List<String> keys : keysBySearchPath.subMap(changedPath + "/", true, changedPath + "0", false).values()) {
+                affectedKeys.addAll(keys);
+            }
+        }
+
+        for (final String key : affectedKeys) {
+            if (cache.asMap().remove(key) != null) {
+                invalidationCount.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Results are keyed on the user's ID, unless sharing across users is explicitly enabled; in that case users with the same group principals
+     * are assumed to have the same read access, and thus may share cached results. Administrators are always keyed on their own principal.
+     *
+     * @param resourceResolver the resource resolver to derive the principals from.
+     * @return a hash representing the user, or the principal set of the resourceResolver's user.
+     * @throws RepositoryException
+     */
+    private String getPrincipalsHash(final ResourceResolver resourceResolver) throws RepositoryException {
+        final Set<String> principalNames = new TreeSet<>();
+
+        if (cfg.shareAcrossUsers()) {
+            final Session session = resourceResolver.adaptTo(Session.class);
+
+            if (session instanceof JackrabbitSession) {
+                final Authorizable authorizable = ((JackrabbitSession) session).getUserManager().getAuthorizable(session.getUserID());
+
+                if (authorizable != null) {
+                    if (authorizable instanceof User && ((User) authorizable).isAdmin()) {
+                        principalNames.add(authorizable.getPrincipal().getName());
+                    }
+
+                    final Iterator<Group> groups = authorizable.memberOf();
+                    while (groups.hasNext()) {
+                        principalNames.add(groups.next().getPrincipal().getName());
+                    }
+                }
+            }
+        }
+
+        if (principalNames.isEmpty()) {
+            // Results are not shared, or nothing is known about this user's access, so never share results with other users.
+            principalNames.add(StringUtils.defaultString(resourceResolver.getUserID()));
+        }
+
+        return DigestUtils.sha256Hex(StringUtils.join(principalNames, "\n"));
+    }
+
+    /** MBean Methods **/
+
+    @Override
+    public long getSize() {
+        return cache.size();
+    }
+
+    @Override
+    public long getHitCount() {
+        return cache.stats().hitCount();
+    }
+
+    @Override
+    public long getMissCount() {
+        return cache.stats().missCount();
+    }
+
+    @Override
+    public double getHitRate() {
+        return cache.stats().hitRate();
+    }
+
+    @Override
+    public long getEvictionCount() {
+        return cache.stats().evictionCount();
+    }
+
+    @Override
+    public long getInvalidationCount() {
+        return invalidationCount.get();
+    }
+
+    @Override
+    public void clear() {
+        cache.invalidateAll();
+        log.info("Cleared the Asset Share Commons search results cache");
+    }
+
+    @Activate
+    @Modified
+    protected void activate(final Cfg cfg) {
+        this.cfg = cfg;
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(cfg.max_size())
+                .expireAfterWrite(cfg.ttl(), TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+    }
+
+    @ObjectClassDefinition(name = "Asset Share Commons - Search Results Cache")
+    public @interface Cfg {
+        @AttributeDefinition(
+                name = "Enabled",
+                description = "Cache QueryBuilder search results across requests. Cached results are only shared across users if 'Share across users' is enabled."
+        )
+        boolean enabled() default false;
+
+        @AttributeDefinition(
+                name = "Share across users",
+                description = "Share cached and coalesced results between different users with the same group memberships. Only enable this if access to assets is never granted or denied to individual users; by default results are keyed on the user's ID."
+        )
+        boolean shareAcrossUsers() default false;
+
+        @AttributeDefinition(
+                name = "Max size",
+                description = "The maximum number of search results to cache."
+        )
+        long max_size() default DEFAULT_MAX_SIZE;
+
+        @AttributeDefinition(
+                name = "Time-to-live",
+                description = "The time in seconds a search result is cached for."
+        )
+        long ttl() default DEFAULT_TTL;
+
+        @AttributeDefinition(
+                name = "Invalidation paths",
+                description = "Changes under these paths invalidate the cached search results whose search paths cover the changed resource. This should include all search paths used by Asset Share Commons search pages."
+        )
+        String[] resource_paths() default {DEFAULT_PATH};
+    }
+}
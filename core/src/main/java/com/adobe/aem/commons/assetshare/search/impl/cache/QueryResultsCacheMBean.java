@@ -0,0 +1,46 @@
+/*
+ * Asset Share Commons
+ *
+ * Copyright (C) 2018 Adobe
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.adobe.aem.commons.assetshare.search.impl.cache;
+
+import com.adobe.granite.jmx.annotation.Description;
+
+@Description("Asset Share Commons - Search Results Cache")
+public interface QueryResultsCacheMBean {
+    @Description("Number of cached search results")
+    long getSize();
+
+    @Description("Number of searches served from the cache")
+    long getHitCount();
+
+    @Description("Number of searches that were not in the cache")
+    long getMissCount();
+
+    @Description("Ratio of cache hits to all cache requests")
+    double getHitRate();
+
+    @Description("Number of entries evicted due to size or time-to-live")
+    long getEvictionCount();
+
+    @Description("Number of entries invalidated by content changes")
+    long getInvalidationCount();
+
+    @Description("Removes all entries from the cache")
+    void clear();
+}
@@ -0,0 +1,46 @@
+/*
+ * Asset Share Commons
+ *
+ * Copyright (C) 2018 Adobe
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.adobe.aem.commons.assetshare.search.impl.cache;
+
+import javax.jcr.RepositoryException;
+
+/**
+ * Coalesces identical, concurrently executing searches into a single query execution.
+ */
+public interface SearchCoalescer {
+    /**
+     * @return true if concurrent identical searches are coalesced.
+     */
+    boolean isEnabled();
+
+    /**
+     * Executes the query, unless a query with the same key is already executing, in which case the result of that execution is waited for and shared.
+     *
+     * @param key the key identifying identical searches; this must identify the searching user, or the principals of the user if results are shared across users (see QueryResultsCache.getCacheKey(..)).
+     * @param query executes the query; it is only invoked by the first of the concurrent callers.
+     * @return the query result.
+     * @throws RepositoryException if the query (of this caller, or of the caller whose execution was joined) failed.
+     */
+    CachedQueryResult execute(String key, Execution query) throws RepositoryException;
+
+    interface Execution {
+        CachedQueryResult execute() throws RepositoryException;
+    }
+}
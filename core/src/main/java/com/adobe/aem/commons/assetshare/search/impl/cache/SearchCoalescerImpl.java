@@ -0,0 +1,169 @@
+/*
+ * Asset Share Commons
+ *
+ * Copyright (C) 2018 Adobe
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.adobe.aem.commons.assetshare.search.impl.cache;
+
+import com.adobe.granite.jmx.annotation.AnnotatedStandardMBean;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Modified;
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.Designate;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.jcr.RepositoryException;
+import javax.management.DynamicMBean;
+import javax.management.NotCompliantMBeanException;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Component(
+        service = {SearchCoalescer.class, DynamicMBean.class},
+        property = {
+                "jmx.objectname=com.adobe.aem.commons.assetshare:type=Search Coalescer"
+        }
+)
+@Designate(ocd = SearchCoalescerImpl.Cfg.class)
+public class SearchCoalescerImpl extends AnnotatedStandardMBean implements SearchCoalescer, SearchCoalescerMBean {
+    private static final Logger log = LoggerFactory.getLogger(SearchCoalescerImpl.class);
+
+    private static final long DEFAULT_TIMEOUT = 10000;
+
+    private final ConcurrentMap<String, CompletableFuture<CachedQueryResult>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong executionCount = new AtomicLong();
+    private final AtomicLong coalescedCount = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+
+    private Cfg cfg;
+
+    public SearchCoalescerImpl() throws NotCompliantMBeanException {
+        super(SearchCoalescerMBean.class);
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return cfg.enabled();
+    }
+
+    @Override
+    public CachedQueryResult execute(final String key, final Execution query) throws RepositoryException {
+        if (!cfg.enabled()) {
+            executionCount.incrementAndGet();
+            return query.execute();
+        }
+
+        final CompletableFuture<CachedQueryResult> execution = new CompletableFuture<>();
+        final CompletableFuture<CachedQueryResult> inFlightExecution = inFlight.putIfAbsent(key, execution);
+
+        if (inFlightExecution != null) {
+            return join(inFlightExecution, query);
+        }
+
+        try {
+            executionCount.incrementAndGet();
+
+            final CachedQueryResult result = query.execute();
+            execution.complete(result);
+
+            return result;
+        } catch (RepositoryException | RuntimeException e) {
+            execution.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, execution);
+
+            if (!execution.isDone()) {
+                execution.completeExceptionally(new RepositoryException("The search did not complete"));
+            }
+        }
+    }
+
+    private CachedQueryResult join(final CompletableFuture<CachedQueryResult> inFlightExecution, final Execution query) throws RepositoryException {
+        try {
+            final CachedQueryResult result = inFlightExecution.get(cfg.timeout(), TimeUnit.MILLISECONDS);
+
+            coalescedCount.incrementAndGet();
+            log.debug("Joined an identical in-flight search");
+
+            return result;
+        } catch (TimeoutException e) {
+            log.debug("Timed out waiting on an identical in-flight search; executing the search", e);
+
+            timeoutCount.incrementAndGet();
+            executionCount.incrementAndGet();
+
+            return query.execute();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RepositoryException("Interrupted while waiting on an identical in-flight search", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RepositoryException) {
+                throw (RepositoryException) e.getCause();
+            }
+
+            throw new RepositoryException("The identical in-flight search failed", e.getCause());
+        }
+    }
+
+    /** MBean Methods **/
+
+    @Override
+    public long getExecutionCount() {
+        return executionCount.get();
+    }
+
+    @Override
+    public long getCoalescedCount() {
+        return coalescedCount.get();
+    }
+
+    @Override
+    public long getTimeoutCount() {
+        return timeoutCount.get();
+    }
+
+    @Override
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    @Activate
+    @Modified
+    protected void activate(final Cfg cfg) {
+        this.cfg = cfg;
+    }
+
+    @ObjectClassDefinition(name = "Asset Share Commons - Search Coalescer")
+    public @interface Cfg {
+        @AttributeDefinition(
+                name = "Enabled",
+                description = "Coalesce identical concurrent searches by the same user into a single query. Searches by different users with the same group memberships are only coalesced if the Search Results Cache's 'Share across users' is enabled."
+        )
+        boolean enabled() default false;
+
+        @AttributeDefinition(
+                name = "Timeout",
+                description = "The time in milliseconds a search waits on an identical in-flight search, before executing its own query."
+        )
+        long timeout() default DEFAULT_TIMEOUT;
+    }
+}
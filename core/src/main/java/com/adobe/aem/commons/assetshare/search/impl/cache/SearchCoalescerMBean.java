@@ -0,0 +1,37 @@
+/*
+ * Asset Share Commons
+ *
+ * Copyright (C) 2018 Adobe
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.adobe.aem.commons.assetshare.search.impl.cache;
+
+import com.adobe.granite.jmx.annotation.Description;
+
+@Description("Asset Share Commons - Search Coalescer")
+public interface SearchCoalescerMBean {
+    @Description("Number of queries executed")
+    long getExecutionCount();
+
+    @Description("Number of searches that joined an identical in-flight query rather than executing their own")
+    long getCoalescedCount();
+
+    @Description("Number of searches that gave up waiting on an identical in-flight query and executed their own")
+    long getTimeoutCount();
+
+    @Description("Number of queries currently executing")
+    int getInFlightCount();
+}
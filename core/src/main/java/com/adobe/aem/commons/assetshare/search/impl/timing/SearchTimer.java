@@ -0,0 +1,163 @@
+/*
+ * Asset Share Commons
+ *
+ * Copyright (C) 2018 Adobe
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.adobe.aem.commons.assetshare.search.impl.timing;
+
+import javax.servlet.ServletRequest;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Accumulates the time spent in each phase of a search over the course of a single request.
+ *
+ * The timer is placed on the request by SearchTimingsImpl; when it is not present (timings are disabled) recording is a no-op.
+ *
+ * Phases may be nested (ie. properties are computed while hits are adapted); each phase only records its exclusive time, so the phases of a request never overlap.
+ */
+public final class SearchTimer {
+    public static final String PHASE_PARAMS = "params";
+    public static final String PHASE_QUERY = "query";
+    public static final String PHASE_ADAPT = "adapt";
+    public static final String PHASE_PROPERTIES = "properties";
+    public static final String PHASE_RENDER = "render";
+
+    static final String REQUEST_ATTR = SearchTimer.class.getName();
+
+    private final long start = System.nanoTime();
+    private final Map<String, Long> phases = new LinkedHashMap<>();
+
+    // The phases in progress, innermost first
+    private final Deque<ActivePhase> activePhases = new ArrayDeque<>();
+
+    private String searchPage;
+
+    SearchTimer() {
+    }
+
+    /**
+     * Starts a phase of the search of this request; the phase must be ended via record(..) with the returned start.
+     *
+     * @param request the search request.
+     * @return the System.nanoTime() at which the phase started.
+     */
+    public static long start(final ServletRequest request) {
+        final long start = System.nanoTime();
+        final SearchTimer timer = get(request);
+
+        if (timer != null) {
+            timer.activePhases.push(new ActivePhase(start));
+        }
+
+        return start;
+    }
+
+    /**
+     * Adds the time elapsed since start, less the time spent in the phases nested within it, to the phase of the search of this request.
+     *
+     * @param request the search request.
+     * @param phase the phase of the search.
+     * @param start the start returned by start(..) when the phase started.
+     */
+    public static void record(final ServletRequest request, final String phase, final long start) {
+        final SearchTimer timer = get(request);
+
+        if (timer == null) {
+            return;
+        }
+
+        final long elapsed = System.nanoTime() - start;
+        long nested = 0;
+
+        if (timer.activePhases.stream().anyMatch(activePhase -> activePhase.start == start)) {
+            // Phases started within this phase, but never recorded (ie. due to an exception), are discarded along with it
+            ActivePhase activePhase;
+
+            do {
+                activePhase = timer.activePhases.pop();
+            } while (activePhase.start != start);
+
+            nested = activePhase.nested;
+        }
+
+        timer.phases.merge(phase, elapsed - nested, Long::sum);
+
+        if (!timer.activePhases.isEmpty()) {
+            timer.activePhases.peek().nested += elapsed;
+        }
+    }
+
+    /**
+     * Identifies the search page the timings of this request are aggregated under.
+     *
+     * @param request the search request.
+     * @param searchPage the path of the search page.
+     */
+    public static void setSearchPage(final ServletRequest request, final String searchPage) {
+        final SearchTimer timer = get(request);
+
+        if (timer != null && timer.searchPage == null) {
+            timer.searchPage = searchPage;
+        }
+    }
+
+    static SearchTimer get(final ServletRequest request) {
+        if (request == null) {
+            return null;
+        }
+
+        final Object timer = request.getAttribute(REQUEST_ATTR);
+        return timer instanceof SearchTimer ? (SearchTimer) timer : null;
+    }
+
+    /**
+     * @return the path of the search page, or null if no search was performed by this request.
+     */
+    String getSearchPage() {
+        return searchPage;
+    }
+
+    /**
+     * The render phase is the remainder of the request not spent in the other phases; as hits are adapted and their properties are computed lazily while the results are rendered, those phases are not part of it.
+     * As the recorded phases do not overlap, the phases add up to the duration of the request.
+     *
+     * @return the nanoseconds spent per phase, in the order the phases were first recorded, followed by the render phase.
+     */
+    Map<String, Long> getPhases() {
+        final Map<String, Long> result = new LinkedHashMap<>(phases);
+        final long measured = phases.values().stream().mapToLong(Long::longValue).sum();
+
+        result.put(PHASE_RENDER, System.nanoTime() - start - measured);
+
+        return Collections.unmodifiableMap(result);
+    }
+
+    private static final class ActivePhase {
+        private final long start;
+
+        // The nanoseconds spent in the phases nested within this phase
+        private long nested;
+
+        private ActivePhase(final long start) {
+            this.start = start;
+        }
+    }
+}
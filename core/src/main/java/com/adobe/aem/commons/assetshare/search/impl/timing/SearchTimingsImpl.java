@@ -0,0 +1,227 @@
+/*
+ * Asset Share Commons
+ *
+ * Copyright (C) 2018 Adobe
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.adobe.aem.commons.assetshare.search.impl.timing;
+
+import com.adobe.aem.commons.assetshare.util.impl.LatencyHistogram;
+import com.adobe.granite.jmx.annotation.AnnotatedStandardMBean;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Modified;
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.Designate;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.DynamicMBean;
+import javax.management.NotCompliantMBeanException;
+import javax.management.openmbean.*;
+import javax.servlet.*;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.osgi.framework.Constants.SERVICE_RANKING;
+
+/**
+ * Times the phases of searches, and aggregates them into latency histograms per search page and phase.
+ *
+ * The phases are recorded via SearchTimer by SearchImpl, the search providers and CombinedProperties.
+ * The filter wraps all requests, but only records those that perform a search, and is disabled by default.
+ * The timings can optionally be emitted as a Server-Timing response header; as the results are rendered (and their hits adapted) as the response is written, this is only possible for responses that are still buffered once rendered, such as the results fragments requested by "load more".
+ */
+@Component(
+        service = {Filter.class, DynamicMBean.class},
+        property = {
+                "sling.filter.scope=REQUEST",
+                SERVICE_RANKING + ":Integer=" + Integer.MAX_VALUE,
+                "jmx.objectname=com.adobe.aem.commons.assetshare:type=Search Timings"
+        }
+)
+@Designate(ocd = SearchTimingsImpl.Cfg.class)
+public class SearchTimingsImpl extends AnnotatedStandardMBean implements Filter, SearchTimingsMBean {
+    private static final Logger log = LoggerFactory.getLogger(SearchTimingsImpl.class);
+
+    private static final String HEADER_SERVER_TIMING = "Server-Timing";
+    private static final String OTHER_SEARCH_PAGES = "(other)";
+
+    private static final String[] HISTOGRAM_ITEMS = {"searchPage", "phase", "count", "mean", "p50", "p90", "p99", "max", "buckets"};
+
+    private final ConcurrentMap<String, ConcurrentMap<String, LatencyHistogram>> histograms = new ConcurrentHashMap<>();
+    private final AtomicLong requestCount = new AtomicLong();
+
+    private Cfg cfg;
+
+    public SearchTimingsImpl() throws NotCompliantMBeanException {
+        super(SearchTimingsMBean.class);
+    }
+
+    @Override
+    public void init(final FilterConfig filterConfig) throws ServletException {
+        // Nothing to initialize
+    }
+
+    @Override
+    public void doFilter(final ServletRequest request, final ServletResponse response, final FilterChain chain) throws IOException, ServletException {
+        if (!cfg.enabled()) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        final SearchTimer timer = new SearchTimer();
+        request.setAttribute(SearchTimer.REQUEST_ATTR, timer);
+
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            request.removeAttribute(SearchTimer.REQUEST_ATTR);
+
+            if (timer.getSearchPage() != null) {
+                record(timer, response);
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        // Nothing to destroy
+    }
+
+    private void record(final SearchTimer timer, final ServletResponse response) {
+        final Map<String, Long> phases = timer.getPhases();
+        final ConcurrentMap<String, LatencyHistogram> searchPageHistograms = getHistograms(timer.getSearchPage());
+
+        requestCount.incrementAndGet();
+
+        for (final Map.Entry<String, Long> phase : phases.entrySet()) {
+            searchPageHistograms.computeIfAbsent(phase.getKey(), key -> LatencyHistogram.milliseconds()).record(phase.getValue());
+        }
+
+        if (cfg.server_timing() && response instanceof HttpServletResponse) {
+            if (response.isCommitted()) {
+                log.debug("Response for search page [ {} ] is already committed; cannot emit the Server-Timing header", timer.getSearchPage());
+            } else {
+                ((HttpServletResponse) response).addHeader(HEADER_SERVER_TIMING, getServerTiming(phases));
+            }
+        }
+    }
+
+    private ConcurrentMap<String, LatencyHistogram> getHistograms(final String searchPage) {
+        final ConcurrentMap<String, LatencyHistogram> searchPageHistograms = histograms.get(searchPage);
+
+        if (searchPageHistograms != null) {
+            return searchPageHistograms;
+        } else if (histograms.size() >= cfg.max_search_pages()) {
+            // Bound the number of tracked search pages; any beyond the limit are aggregated together
+            return histograms.computeIfAbsent(OTHER_SEARCH_PAGES, key -> new ConcurrentHashMap<>());
+        }
+
+        return histograms.computeIfAbsent(searchPage, key -> new ConcurrentHashMap<>());
+    }
+
+    private String getServerTiming(final Map<String, Long> phases) {
+        final StringBuilder sb = new StringBuilder();
+
+        for (final Map.Entry<String, Long> phase : phases.entrySet()) {
+            if (sb.length() > 0) {
+                sb.append(", ");
+            }
+
+            sb.append("search-").append(phase.getKey())
+                    .append(";dur=").append(String.format(Locale.ROOT, "%.1f", phase.getValue() / 1000000d));
+        }
+
+        return sb.toString();
+    }
+
+    /** MBean Methods **/
+
+    @Override
+    public TabularData getHistograms() throws OpenDataException {
+        final CompositeType histogramType = new CompositeType("histogram", "Search phase latency histogram",
+                HISTOGRAM_ITEMS,
+                new String[]{"Search page", "Phase", "Count", "Mean (ms)", "50th percentile (ms)", "90th percentile (ms)", "99th percentile (ms)", "Max (ms)", "Buckets"},
+                new OpenType[]{SimpleType.STRING, SimpleType.STRING, SimpleType.LONG, SimpleType.DOUBLE, SimpleType.DOUBLE, SimpleType.DOUBLE, SimpleType.DOUBLE, SimpleType.DOUBLE, SimpleType.STRING});
+        final TabularDataSupport tabularData = new TabularDataSupport(new TabularType("histograms", "Search phase latency histograms", histogramType, new String[]{"searchPage", "phase"}));
+
+        for (final Map.Entry<String, ConcurrentMap<String, LatencyHistogram>> searchPage : histograms.entrySet()) {
+            for (final Map.Entry<String, LatencyHistogram> phase : searchPage.getValue().entrySet()) {
+                final LatencyHistogram histogram = phase.getValue();
+
+                tabularData.put(new CompositeDataSupport(histogramType, HISTOGRAM_ITEMS, new Object[]{
+                        searchPage.getKey(),
+                        phase.getKey(),
+                        histogram.getCount(),
+                        histogram.getMean(),
+                        histogram.getPercentile(50),
+                        histogram.getPercentile(90),
+                        histogram.getPercentile(99),
+                        histogram.getMax(),
+                        histogram.getBuckets()}));
+            }
+        }
+
+        return tabularData;
+    }
+
+    @Override
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    @Override
+    public void reset() {
+        histograms.clear();
+        requestCount.set(0);
+        log.info("Reset the Asset Share Commons search timings");
+    }
+
+    @Activate
+    @Modified
+    protected void activate(final Cfg cfg) {
+        this.cfg = cfg;
+    }
+
+    @ObjectClassDefinition(name = "Asset Share Commons - Search Timings")
+    public @interface Cfg {
+        @AttributeDefinition(
+                name = "Enabled",
+                description = "Record per search page latency histograms of each search phase: assembling the query parameters (params), executing the query (query), adapting hits to results (adapt), computing asset properties (properties) and the remainder of the request (render). "
+                        + "Each phase records only the time not spent in the phases nested within it, so the phases of a search add up to its request's duration."
+        )
+        boolean enabled() default false;
+
+        @AttributeDefinition(
+                name = "Server-Timing header",
+                description = "Emit the search phase timings as a Server-Timing response header, where the response is not yet committed."
+        )
+        boolean server_timing() default false;
+
+        @AttributeDefinition(
+                name = "Max search pages",
+                description = "The maximum number of search pages histograms are kept for; timings of any further search pages are aggregated under (other)."
+        )
+        int max_search_pages() default 100;
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Asset Share Commons
+ *
+ * Copyright (C) 2018 Adobe
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.adobe.aem.commons.assetshare.search.impl.timing;
+
+import com.adobe.granite.jmx.annotation.Description;
+
+import javax.management.openmbean.OpenDataException;
+import javax.management.openmbean.TabularData;
+
+@Description("Asset Share Commons - Search Timings")
+public interface SearchTimingsMBean {
+    @Description("The latency histogram of each search phase (params, query, adapt, properties, render) per search page")
+    TabularData getHistograms() throws OpenDataException;
+
+    @Description("Number of search requests timed")
+    long getRequestCount();
+
+    @Description("Removes all recorded timings")
+    void reset();
+}
@@ -0,0 +1,40 @@
+/*
+ * Asset Share Commons
+ *
+ * Copyright (C) 2018 Adobe
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.adobe.aem.commons.assetshare.search.impl.timing;
+
+import com.day.cq.search.PredicateGroup;
+import org.apache.sling.api.SlingHttpServletRequest;
+
+/**
+ * Records searches slower than a configured threshold, aggregated by the structural fingerprint of their predicates.
+ */
+public interface SlowSearchLog {
+    /**
+     * Records the search if its duration exceeds the configured threshold; faster searches are ignored at negligible cost.
+     *
+     * @param request the search request, identifying the search page.
+     * @param root the executed predicate group.
+     * @param queryStatement the executed query statement.
+     * @param hits the number of hits returned.
+     * @param totalMatches the total number of matches (or the guessed total).
+     * @param durationMillis the time taken to execute the search.
+     */
+    void record(SlingHttpServletRequest request, PredicateGroup root, String queryStatement, long hits, long totalMatches, long durationMillis);
+}
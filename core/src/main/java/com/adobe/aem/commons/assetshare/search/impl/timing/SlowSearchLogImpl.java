@@ -0,0 +1,281 @@
+/*
+ * Asset Share Commons
+ *
+ * Copyright (C) 2018 Adobe
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.adobe.aem.commons.assetshare.search.impl.timing;
+
+import com.adobe.aem.commons.assetshare.search.providers.impl.Sql2QueryCompiler;
+import com.adobe.granite.jmx.annotation.AnnotatedStandardMBean;
+import com.day.cq.search.PredicateConverter;
+import com.day.cq.search.PredicateGroup;
+import com.day.cq.wcm.api.Page;
+import com.day.cq.wcm.api.PageManager;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.jackrabbit.util.ISO8601;
+import org.apache.sling.api.SlingHttpServletRequest;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Modified;
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.Designate;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.DynamicMBean;
+import javax.management.NotCompliantMBeanException;
+import javax.management.openmbean.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps the most recent slow searches in a lock-free ring buffer, and aggregates all slow searches by the structural fingerprint of their predicates (see Sql2QueryCompiler.getFingerprint(..)), so the authored search pages and facet combinations that are expensive can be found without DEBUG logging.
+ */
+@Component(
+        service = {SlowSearchLog.class, DynamicMBean.class},
+        property = {
+                "jmx.objectname=com.adobe.aem.commons.assetshare:type=Slow Search Log"
+        }
+)
+@Designate(ocd = SlowSearchLogImpl.Cfg.class)
+public class SlowSearchLogImpl extends AnnotatedStandardMBean implements SlowSearchLog, SlowSearchLogMBean {
+    private static final Logger log = LoggerFactory.getLogger(SlowSearchLogImpl.class);
+
+    private static final String[] RECENT_ITEMS = {"index", "time", "duration", "searchPage", "fingerprint", "statement", "hits", "totalMatches"};
+    private static final String[] TOP_ITEMS = {"fingerprint", "count", "totalDuration", "meanDuration", "maxDuration", "structure", "lastSearchPage", "lastStatement"};
+
+    private final AtomicLong index = new AtomicLong();
+    private final ConcurrentMap<String, Aggregate> aggregates = new ConcurrentHashMap<>();
+
+    private volatile AtomicReferenceArray<SlowSearch> recent;
+
+    private Cfg cfg;
+
+    public SlowSearchLogImpl() throws NotCompliantMBeanException {
+        super(SlowSearchLogMBean.class);
+    }
+
+    @Override
+    public void record(final SlingHttpServletRequest request,
+                       final PredicateGroup root,
+                       final String queryStatement,
+                       final long hits,
+                       final long totalMatches,
+                       final long durationMillis) {
+        if (!cfg.enabled() || durationMillis < cfg.threshold()) {
+            return;
+        }
+
+        final String structure = Sql2QueryCompiler.getFingerprint(PredicateConverter.createMap(root));
+        final String fingerprint = DigestUtils.sha256Hex(structure);
+        final SlowSearch slowSearch = new SlowSearch(index.getAndIncrement(), fingerprint, getSearchPage(request), queryStatement, hits, totalMatches, durationMillis);
+        final AtomicReferenceArray<SlowSearch> buffer = recent;
+
+        buffer.set((int) (slowSearch.index % buffer.length()), slowSearch);
+
+        Aggregate aggregate = aggregates.get(fingerprint);
+
+        if (aggregate == null && aggregates.size() < cfg.max_fingerprints()) {
+            aggregate = aggregates.computeIfAbsent(fingerprint, key -> new Aggregate(key, structure));
+        }
+
+        if (aggregate != null) {
+            aggregate.add(slowSearch);
+        }
+
+        log.info("Slow search [ {} ] on [ {} ] took [ {} ms ] returning [ {} ] of [ {} ] hits", fingerprint, slowSearch.searchPage, durationMillis, hits, totalMatches);
+    }
+
+    private String getSearchPage(final SlingHttpServletRequest request) {
+        final PageManager pageManager = request.getResourceResolver().adaptTo(PageManager.class);
+        final Page page = pageManager != null ? pageManager.getContainingPage(request.getResource()) : null;
+
+        return page != null ? page.getPath() : request.getResource().getPath();
+    }
+
+    /** MBean Methods **/
+
+    @Override
+    public TabularData getRecentSlowSearches() throws OpenDataException {
+        final CompositeType slowSearchType = new CompositeType("slowSearch", "Slow search",
+                RECENT_ITEMS,
+                new String[]{"Index", "Time", "Duration (ms)", "Search page", "Structural fingerprint", "Query statement", "Hits", "Total matches"},
+                new OpenType[]{SimpleType.LONG, SimpleType.STRING, SimpleType.LONG, SimpleType.STRING, SimpleType.STRING, SimpleType.STRING, SimpleType.LONG, SimpleType.LONG});
+        final TabularDataSupport tabularData = new TabularDataSupport(new TabularType("slowSearches", "Recent slow searches", slowSearchType, new String[]{"index"}));
+
+        final AtomicReferenceArray<SlowSearch> buffer = recent;
+        final List<SlowSearch> slowSearches = new ArrayList<>();
+
+        for (int i = 0; i < buffer.length(); i++) {
+            final SlowSearch slowSearch = buffer.get(i);
+
+            if (slowSearch != null) {
+                slowSearches.add(slowSearch);
+            }
+        }
+
+        slowSearches.sort(Comparator.comparingLong((SlowSearch slowSearch) -> slowSearch.index).reversed());
+
+        for (final SlowSearch slowSearch : slowSearches) {
+            tabularData.put(new CompositeDataSupport(slowSearchType, RECENT_ITEMS, new Object[]{
+                    slowSearch.index,
+                    ISO8601.format(slowSearch.time),
+                    slowSearch.duration,
+                    slowSearch.searchPage,
+                    slowSearch.fingerprint,
+                    StringUtils.defaultString(slowSearch.statement),
+                    slowSearch.hits,
+                    slowSearch.totalMatches}));
+        }
+
+        return tabularData;
+    }
+
+    @Override
+    public TabularData getTopSlowSearches() throws OpenDataException {
+        final CompositeType aggregateType = new CompositeType("slowSearchAggregate", "Slow searches by structure",
+                TOP_ITEMS,
+                new String[]{"Structural fingerprint", "Count", "Total duration (ms)", "Mean duration (ms)", "Max duration (ms)", "Query structure", "Last search page", "Last query statement"},
+                new OpenType[]{SimpleType.STRING, SimpleType.LONG, SimpleType.LONG, SimpleType.LONG, SimpleType.LONG, SimpleType.STRING, SimpleType.STRING, SimpleType.STRING});
+        final TabularDataSupport tabularData = new TabularDataSupport(new TabularType("slowSearchAggregates", "Top slow searches by structure", aggregateType, new String[]{"fingerprint"}));
+
+        final List<Aggregate> top = new ArrayList<>(aggregates.values());
+        top.sort(Comparator.comparingLong((Aggregate aggregate) -> aggregate.totalDuration.sum()).reversed());
+
+        for (final Aggregate aggregate : top.subList(0, Math.min(top.size(), cfg.top_n()))) {
+            final long count = aggregate.count.sum();
+            final long totalDuration = aggregate.totalDuration.sum();
+
+            tabularData.put(new CompositeDataSupport(aggregateType, TOP_ITEMS, new Object[]{
+                    aggregate.fingerprint,
+                    count,
+                    totalDuration,
+                    count == 0 ? 0L : totalDuration / count,
+                    aggregate.maxDuration.get(),
+                    aggregate.structure,
+                    StringUtils.defaultString(aggregate.lastSearchPage),
+                    StringUtils.defaultString(aggregate.lastStatement)}));
+        }
+
+        return tabularData;
+    }
+
+    @Override
+    public long getSlowSearchCount() {
+        return index.get();
+    }
+
+    @Override
+    public void reset() {
+        recent = new AtomicReferenceArray<>(Math.max(1, cfg.buffer_size()));
+        aggregates.clear();
+        index.set(0);
+        log.info("Reset the Asset Share Commons slow search log");
+    }
+
+    @Activate
+    @Modified
+    protected void activate(final Cfg cfg) {
+        this.cfg = cfg;
+        this.recent = new AtomicReferenceArray<>(Math.max(1, cfg.buffer_size()));
+    }
+
+    private static final class SlowSearch {
+        private final long index;
+        private final Calendar time = Calendar.getInstance();
+        private final String fingerprint;
+        private final String searchPage;
+        private final String statement;
+        private final long hits;
+        private final long totalMatches;
+        private final long duration;
+
+        private SlowSearch(final long index, final String fingerprint, final String searchPage, final String statement, final long hits, final long totalMatches, final long duration) {
+            this.index = index;
+            this.fingerprint = fingerprint;
+            this.searchPage = searchPage;
+            this.statement = statement;
+            this.hits = hits;
+            this.totalMatches = totalMatches;
+            this.duration = duration;
+        }
+    }
+
+    private static final class Aggregate {
+        private final String fingerprint;
+        private final String structure;
+
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalDuration = new LongAdder();
+        private final AtomicLong maxDuration = new AtomicLong();
+
+        private volatile String lastSearchPage;
+        private volatile String lastStatement;
+
+        private Aggregate(final String fingerprint, final String structure) {
+            this.fingerprint = fingerprint;
+            this.structure = structure;
+        }
+
+        private void add(final SlowSearch slowSearch) {
+            count.increment();
+            totalDuration.add(slowSearch.duration);
+            maxDuration.accumulateAndGet(slowSearch.duration, Math::max);
+            lastSearchPage = slowSearch.searchPage;
+            lastStatement = slowSearch.statement;
+        }
+    }
+
+    @ObjectClassDefinition(name = "Asset Share Commons - Slow Search Log")
+    public @interface Cfg {
+        @AttributeDefinition(
+                name = "Enabled",
+                description = "Record searches slower than the threshold."
+        )
+        boolean enabled() default true;
+
+        @AttributeDefinition(
+                name = "Threshold",
+                description = "The time in milliseconds above which a search is recorded as slow."
+        )
+        long threshold() default 1000;
+
+        @AttributeDefinition(
+                name = "Recent slow searches",
+                description = "The number of most recent slow searches to keep."
+        )
+        int buffer_size() default 100;
+
+        @AttributeDefinition(
+                name = "Top slow searches",
+                description = "The number of search structures listed by the top slow searches."
+        )
+        int top_n() default 20;
+
+        @AttributeDefinition(
+                name = "Max search structures",
+                description = "The maximum number of distinct search structures (predicate fingerprints) aggregated."
+        )
+        int max_fingerprints() default 1000;
+    }
+}
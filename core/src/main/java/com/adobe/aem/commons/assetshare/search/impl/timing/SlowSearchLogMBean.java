@@ -0,0 +1,40 @@
+/*
+ * Asset Share Commons
+ *
+ * Copyright (C) 2018 Adobe
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.adobe.aem.commons.assetshare.search.impl.timing;
+
+import com.adobe.granite.jmx.annotation.Description;
+
+import javax.management.openmbean.OpenDataException;
+import javax.management.openmbean.TabularData;
+
+@Description("Asset Share Commons - Slow Search Log")
+public interface SlowSearchLogMBean {
+    @Description("The most recent slow searches, newest first")
+    TabularData getRecentSlowSearches() throws OpenDataException;
+
+    @Description("The slow search structures (predicate fingerprints) that took the most time in total")
+    TabularData getTopSlowSearches() throws OpenDataException;
+
+    @Description("Number of slow searches recorded")
+    long getSlowSearchCount();
+
+    @Description("Removes all recorded slow searches")
+    void reset();
+}
@@ -0,0 +1,336 @@
+/*
+ * Asset Share Commons
+ *
+ * Copyright (C) 2018 Adobe
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.adobe.aem.commons.assetshare.search.providers.impl;
+
+import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.jackrabbit.util.ISO8601;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.UnsupportedEncodingException;
+import java.math.BigDecimal;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * An opaque keyset (search-after) pagination cursor.
+ *
+ * The cursor captures the order by value of the last hit of a page, and the paths of the hits of that page that share this value.
+ * The next page is then queried using a range predicate on the order by property (inclusive of the last value), from which the already returned hits are removed.
+ * This allows each page to be queried from offset 0, rather than having the query engine read and skip all previous pages.
+ */
+final class QueryCursor {
+    private static final Logger log = LoggerFactory.getLogger(QueryCursor.class);
+
+    public static final String REQUEST_PARAMETER = "cursor";
+    public static final String ADDITIONAL_DATA_KEY = "cursor";
+
+    private static final String DELIMITER = "\n";
+    private static final String SORT_DESC = "desc";
+    private static final String SCORE = "@jcr:score";
+
+    private static final String RANGE_PROPERTY = "rangeproperty";
+    private static final String DATE_RANGE = "daterange";
+    private static final String PN_PROPERTY = "property";
+    private static final String PN_LOWER_BOUND = "lowerBound";
+    private static final String PN_LOWER_OPERATION = "lowerOperation";
+    private static final String PN_UPPER_BOUND = "upperBound";
+    private static final String PN_UPPER_OPERATION = "upperOperation";
+    private static final String PN_DECIMAL = "decimal";
+
+    // The maximum number of hits sharing the same order by value that can be tracked by a cursor; beyond this offset pagination is used.
+    private static final int MAX_PATHS = 100;
+
+    enum Type {
+        DECIMAL,
+        DATE
+    }
+
+    private final String orderBy;
+    private final String sort;
+    private final Type type;
+    private final String value;
+    private final long offset;
+    private final List<String> paths;
+
+    private QueryCursor(final String orderBy, final String sort, final Type type, final String value, final long offset, final List<String> paths) {
+        this.orderBy = orderBy;
+        this.sort = sort;
+        this.type = type;
+        this.value = value;
+        this.offset = offset;
+        this.paths = Collections.unmodifiableList(paths);
+    }
+
+    /**
+     * @param orderBy the QueryBuilder order by value (ie. @jcr:content/jcr:lastModified).
+     * @return true if keyset pagination can be used with this ordering.
+     */
+    public static boolean isSupported(final String orderBy) {
+        return getPropertyPath(orderBy) != null;
+    }
+
+    /**
+     * @param encoded the encoded cursor, as provided via the cursor request parameter.
+     * @param orderBy the order by of the current search.
+     * @param sort the sort direction of the current search.
+     * @return the decoded cursor, or null if the cursor is invalid or was created for a different ordering.
+     */
+    public static QueryCursor decode(final String encoded, final String orderBy, final String sort) {
+        if (StringUtils.isBlank(encoded) || !isSupported(orderBy)) {
+            return null;
+        }
+
+        try {
+            final String[] fields = StringUtils.splitPreserveAllTokens(new String(Base64.decodeBase64(encoded), StandardCharsets.UTF_8), DELIMITER);
+
+            // The cursor is provided by the client, so it must not extend the page beyond the paths a valid cursor can track
+            if (fields.length < 6 || fields.length - 5 > MAX_PATHS) {
+                return null;
+            }
+
+            final List<String> paths = new ArrayList<>();
+            for (int i = 5; i < fields.length; i++) {
+                paths.add(decodeField(fields[i]));
+            }
+
+            final QueryCursor cursor = new QueryCursor(decodeField(fields[0]),
+                    decodeField(fields[1]),
+                    Type.valueOf(decodeField(fields[2])),
+                    decodeField(fields[3]),
+                    Long.parseLong(decodeField(fields[4])),
+                    paths);
+
+            if (!cursor.isValid()) {
+                log.debug("Ignoring invalid search cursor [ {} ]", encoded);
+            } else if (StringUtils.equals(cursor.orderBy, orderBy) && isDescending(cursor.sort) == isDescending(sort)) {
+                return cursor;
+            }
+        } catch (IllegalArgumentException | UnsupportedEncodingException e) {
+            log.debug("Ignoring invalid search cursor [ {} ]", encoded, e);
+        }
+
+        return null;
+    }
+
+    /**
+     * As the value is used as a range predicate bound, it must be a value of the cursor's type.
+     *
+     * @return true if the value is of the cursor's type, and the offset is not negative.
+     */
+    private boolean isValid() {
+        if (offset < 0 || value == null) {
+            return false;
+        } else if (Type.DATE.equals(type)) {
+            return ISO8601.parse(value) != null;
+        }
+
+        try {
+            new BigDecimal(value);
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Creates the cursor that points after the last of the provided hits.
+     *
+     * @param previous the cursor used to query the hits, or null if the hits are the first page.
+     * @param orderBy the order by of the current search.
+     * @param sort the sort direction of the current search.
+     * @param hitPaths the paths of the hits of the current page, in order.
+     * @param offset the number of results preceding the next page.
+     * @param resourceResolver the resource resolver used to read the order by values of the hits.
+     * @return the next cursor, or null if no cursor can be created for these hits.
+     */
+    public static QueryCursor next(final QueryCursor previous,
+                                   final String orderBy,
+                                   final String sort,
+                                   final List<String> hitPaths,
+                                   final long offset,
+                                   final ResourceResolver resourceResolver) {
+        final String propertyPath = getPropertyPath(orderBy);
+
+        if (propertyPath == null || hitPaths.isEmpty()) {
+            return null;
+        }
+
+        final Object lastValue = getValue(resourceResolver, hitPaths.get(hitPaths.size() - 1), propertyPath);
+        final Type type = getType(lastValue);
+
+        if (type == null) {
+            return null;
+        }
+
+        final String value = toString(lastValue, type);
+        final List<String> paths = new ArrayList<>();
+
+        // Collect all hits that share the last value, as the next (inclusive) range query will return them again
+        for (int i = hitPaths.size() - 1; i >= 0; i--) {
+            final String hitPath = hitPaths.get(i);
+
+            if (i != hitPaths.size() - 1) {
+                final Object hitValue = getValue(resourceResolver, hitPath, propertyPath);
+                if (type != getType(hitValue) || !StringUtils.equals(value, toString(hitValue, type))) {
+                    break;
+                }
+            }
+
+            paths.add(hitPath);
+        }
+
+        if (previous != null && previous.type == type && StringUtils.equals(previous.value, value)) {
+            paths.addAll(previous.paths);
+        }
+
+        if (paths.size() > MAX_PATHS) {
+            log.debug("Too many hits share the order by value [ {} ] to use a search cursor", value);
+            return null;
+        }
+
+        return new QueryCursor(orderBy, sort, type, value, offset, paths);
+    }
+
+    /**
+     * @return the encoded (opaque) form of this cursor.
+     */
+    public String encode() {
+        final List<String> fields = new ArrayList<>();
+
+        try {
+            fields.add(encodeField(orderBy));
+            fields.add(encodeField(sort));
+            fields.add(encodeField(type.name()));
+            fields.add(encodeField(value));
+            fields.add(encodeField(String.valueOf(offset)));
+
+            for (final String path : paths) {
+                fields.add(encodeField(path));
+            }
+        } catch (UnsupportedEncodingException e) {
+            log.error("Could not encode search cursor", e);
+            return null;
+        }
+
+        return Base64.encodeBase64URLSafeString(StringUtils.join(fields, DELIMITER).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return the QueryBuilder parameters for the range predicate that restricts the query to hits at or after this cursor.
+     */
+    public Map<String, String> getRangePredicateParams() {
+        final String predicateName = Type.DATE.equals(type) ? DATE_RANGE : RANGE_PROPERTY;
+        final Map<String, String> params = new HashMap<>();
+
+        params.put(predicateName + "." + PN_PROPERTY, getPropertyPath(orderBy));
+
+        if (isDescending(sort)) {
+            params.put(predicateName + "." + PN_UPPER_BOUND, value);
+            params.put(predicateName + "." + PN_UPPER_OPERATION, "<=");
+        } else {
+            params.put(predicateName + "." + PN_LOWER_BOUND, value);
+            params.put(predicateName + "." + PN_LOWER_OPERATION, ">=");
+        }
+
+        if (Type.DECIMAL.equals(type)) {
+            params.put(predicateName + "." + PN_DECIMAL, "true");
+        }
+
+        return params;
+    }
+
+    /**
+     * @return the number of results that precede the page this cursor points to.
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     * @return the paths of the hits, sharing this cursor's order by value, that have already been returned.
+     */
+    public List<String> getPaths() {
+        return paths;
+    }
+
+    /**
+     * @param path the path of a hit.
+     * @return true if the hit has already been returned by a previous page.
+     */
+    public boolean isVisited(final String path) {
+        return paths.contains(path);
+    }
+
+    private static String getPropertyPath(final String orderBy) {
+        if (StringUtils.startsWith(orderBy, "@") && !StringUtils.equals(orderBy, SCORE)) {
+            return StringUtils.removeStart(orderBy, "@");
+        }
+
+        return null;
+    }
+
+    private static boolean isDescending(final String sort) {
+        return StringUtils.equalsIgnoreCase(SORT_DESC, sort);
+    }
+
+    private static Object getValue(final ResourceResolver resourceResolver, final String path, final String propertyPath) {
+        final Resource resource = resourceResolver.getResource(path);
+
+        if (resource == null) {
+            return null;
+        }
+
+        return resource.getValueMap().get(propertyPath);
+    }
+
+    private static Type getType(final Object value) {
+        if (value instanceof Calendar) {
+            return Type.DATE;
+        } else if (value instanceof Number) {
+            return Type.DECIMAL;
+        }
+
+        // String values cannot be bound by QueryBuilder's rangeproperty (which does not quote them), so they use offset pagination;
+        // as do null and multi-value properties
+        return null;
+    }
+
+    private static String toString(final Object value, final Type type) {
+        if (Type.DATE.equals(type)) {
+            return ISO8601.format((Calendar) value);
+        }
+
+        return String.valueOf(value);
+    }
+
+    private static String encodeField(final String field) throws UnsupportedEncodingException {
+        return URLEncoder.encode(StringUtils.defaultString(field), StandardCharsets.UTF_8.name());
+    }
+
+    private static String decodeField(final String field) throws UnsupportedEncodingException {
+        return URLDecoder.decode(field, StandardCharsets.UTF_8.name());
+    }
+}
@@ -0,0 +1,288 @@
+/*
+ * Asset Share Commons
+ *
+ * Copyright (C) 2018 Adobe
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.adobe.aem.commons.assetshare.search.providers.impl;
+
+import com.adobe.aem.commons.assetshare.components.predicates.PagePredicate;
+import com.adobe.aem.commons.assetshare.search.QueryParameterPostProcessor;
+import com.adobe.aem.commons.assetshare.search.impl.timing.SearchTimer;
+import com.adobe.aem.commons.assetshare.search.results.AssetResult;
+import com.adobe.aem.commons.assetshare.search.results.Result;
+import com.adobe.aem.commons.assetshare.search.results.impl.results.QueryBuilderResultsImpl;
+import com.adobe.aem.commons.assetshare.util.PredicateUtil;
+import com.day.cq.search.Predicate;
+import com.day.cq.search.PredicateConverter;
+import com.day.cq.search.PredicateGroup;
+import com.day.cq.search.eval.PathPredicateEvaluator;
+import com.day.cq.search.facets.Bucket;
+import com.day.cq.search.facets.Facet;
+import com.day.cq.search.result.SearchResult;
+import com.day.text.Text;
+import com.google.common.collect.ImmutableMap;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.apache.sling.api.SlingHttpServletRequest;
+import org.apache.sling.api.request.RequestParameter;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ValueMap;
+import org.apache.sling.models.factory.ModelFactory;
+
+import javax.jcr.RepositoryException;
+import java.util.*;
+
+/**
+ * Request to QueryBuilder parameter handling shared by the query based search providers.
+ */
+final class QuerySearchParams {
+    private QuerySearchParams() {
+    }
+
+    /**
+     * Generates the QueryBuilder query params from the Page Predicate settings and the request attributes.
+     *
+     * @param request the search request.
+     * @param pagePredicate the page predicate of the search.
+     * @param cursor the keyset pagination cursor to restrict the query by, or null if offset pagination is used.
+     * @param queryParametersPostProcessor the post processor to apply to the params, or null.
+     * @return the QueryBuilder parameter map.
+     */
+    static Map<String, String> getParams(final SlingHttpServletRequest request,
+                                         final PagePredicate pagePredicate,
+                                         final QueryCursor cursor,
+                                         final QueryParameterPostProcessor queryParametersPostProcessor) {
+        Map<String, String> params = new HashMap<>();
+        // Copy over query params
+
+        for (final Map.Entry<String, RequestParameter[]> entry : request.getRequestParameterMap().entrySet()) {
+            params.put(entry.getKey(), entry.getValue()[0].getString());
+        }
+
+        // Remove common junk params
+        cleanParams(params);
+
+        final PredicateGroup root = PredicateConverter.createPredicates(params);
+
+        PagePredicate.ParamTypes[] excludeParamTypes = new PagePredicate.ParamTypes[]{};
+
+        if (isPathsProvidedByRequestParams(pagePredicate, params)) {
+            excludeParamTypes = new PagePredicate.ParamTypes[]{ PagePredicate.ParamTypes.PATH };
+        }
+
+        root.addAll(pagePredicate.getPredicateGroup(excludeParamTypes));
+
+        // If not provided, use the defaults set on the Search Component resource
+        addToPredicateGroupIfNotPresent(root, Predicate.ORDER_BY, pagePredicate.getOrderBy());
+        addToPredicateGroupIfNotPresent(root, Predicate.ORDER_BY + "." + Predicate.PARAM_SORT, pagePredicate.getOrderBySort());
+
+        if (cursor != null) {
+            // Seek to the cursor rather than skipping the previous pages; the hits that share the cursor's value are re-selected, so the limit is extended to account for them
+            root.add(PredicateConverter.createPredicates(cursor.getRangePredicateParams()));
+        }
+
+        params = PredicateConverter.createMap(root);
+
+        if (cursor != null) {
+            params.remove(PredicateConverter.GROUP_PARAMETER_PREFIX + "." + Predicate.PARAM_OFFSET);
+            params.put(PredicateConverter.GROUP_PARAMETER_PREFIX + "." + Predicate.PARAM_LIMIT, String.valueOf(pagePredicate.getLimit() + cursor.getPaths().size()));
+        }
+
+        if (pagePredicate.getReadLimit() > 0) {
+            // Stop counting matches at the search page's read limit
+            final String guessTotalKey = PredicateConverter.GROUP_PARAMETER_PREFIX + "." + Predicate.PARAM_GUESS_TOTAL;
+            final long guessTotal = NumberUtils.toLong(params.get(guessTotalKey), Long.MAX_VALUE);
+
+            if (!"true".equalsIgnoreCase(params.get(guessTotalKey))) {
+                params.put(guessTotalKey, String.valueOf(Math.min(guessTotal, pagePredicate.getReadLimit())));
+            }
+        }
+
+        if (queryParametersPostProcessor != null) {
+            params = queryParametersPostProcessor.process(request, params);
+        }
+
+        return params;
+    }
+
+    /**
+     * @param request the search request.
+     * @param pagePredicate the page predicate of the search.
+     * @return the cursor provided by the request, or null if keyset pagination is not enabled, not supported by the ordering, or no (valid) cursor was provided.
+     */
+    static QueryCursor getCursor(final SlingHttpServletRequest request, final PagePredicate pagePredicate) {
+        if (!pagePredicate.isCursorPagination()) {
+            return null;
+        }
+
+        final RequestParameter requestParameter = request.getRequestParameter(QueryCursor.REQUEST_PARAMETER);
+
+        if (requestParameter == null) {
+            return null;
+        }
+
+        return QueryCursor.decode(requestParameter.getString(), pagePredicate.getOrderBy(), pagePredicate.getOrderBySort());
+    }
+
+    /**
+     * Re-bases the results' paging values on the cursor the query was restricted by, and adds the cursor for the next page to the results' additional data.
+     *
+     * @param request the search request.
+     * @param pagePredicate the page predicate of the search.
+     * @param cursor the cursor the query was restricted by, or null if this is the first page or offset pagination was used.
+     * @param hitPaths the paths of the query's hits, including those already returned by previous pages.
+     * @param resultsImpl the results of the query.
+     */
+    static void applyCursor(final SlingHttpServletRequest request,
+                            final PagePredicate pagePredicate,
+                            final QueryCursor cursor,
+                            final List<String> hitPaths,
+                            final QueryBuilderResultsImpl resultsImpl) {
+        if (!pagePredicate.isCursorPagination()) {
+            return;
+        }
+
+        final List<String> unvisitedHitPaths = new ArrayList<>(hitPaths);
+
+        if (cursor != null) {
+            unvisitedHitPaths.removeAll(cursor.getPaths());
+            resultsImpl.applyCursor(cursor.getOffset(), hitPaths.size() - unvisitedHitPaths.size());
+        }
+
+        if (resultsImpl.isMore()) {
+            final QueryCursor nextCursor = QueryCursor.next(cursor,
+                    pagePredicate.getOrderBy(),
+                    pagePredicate.getOrderBySort(),
+                    unvisitedHitPaths,
+                    resultsImpl.getRunningTotal(),
+                    request.getResourceResolver());
+
+            if (nextCursor != null) {
+                resultsImpl.getAdditionalData().put(QueryCursor.ADDITIONAL_DATA_KEY, nextCursor.encode());
+            }
+        }
+    }
+
+    /**
+     * Resolves the hit path using the request's resource resolver and adapts it to an AssetResult.
+     *
+     * @param modelFactory the model factory used to adapt the hit.
+     * @param request the request that initiated the search.
+     * @param cursor the cursor the query was restricted by, or null if offset pagination is used.
+     * @param hitPath the path of the hit to adapt.
+     * @return the adapted result, or null if the hit could not be resolved or adapted, or was already returned by a previous page.
+     */
+    static Result adaptHit(final ModelFactory modelFactory, final SlingHttpServletRequest request, final QueryCursor cursor, final String hitPath) {
+        if (cursor != null && cursor.isVisited(hitPath)) {
+            return null;
+        }
+
+        final long start = SearchTimer.start(request);
+
+        try {
+            final Resource hitResource = request.getResourceResolver().getResource(hitPath);
+
+            if (hitResource != null) {
+                return modelFactory.getModelFromWrappedRequest(request, hitResource, AssetResult.class);
+            }
+
+            return null;
+        } finally {
+            SearchTimer.record(request, SearchTimer.PHASE_ADAPT, start);
+        }
+    }
+
+    /**
+     * @param searchResult a QueryBuilder search result, whose query extracted facets.
+     * @return the number of matches per value, keyed by predicate path (ie. 1_group.propertyvalues) and then by value.
+     * @throws RepositoryException
+     */
+    static Map<String, Map<String, Long>> getFacetCounts(final SearchResult searchResult) throws RepositoryException {
+        final Map<String, Map<String, Long>> facetCounts = new LinkedHashMap<>();
+
+        for (final Map.Entry<String, Facet> facet : searchResult.getFacets().entrySet()) {
+            final Map<String, Long> counts = new LinkedHashMap<>();
+
+            for (final Bucket bucket : facet.getValue().getBuckets()) {
+                counts.put(bucket.getValue(), bucket.getCount());
+            }
+
+            facetCounts.put(facet.getKey(), counts);
+        }
+
+        return facetCounts;
+    }
+
+    /**
+     * @param root the predicate group to execute.
+     * @return the path restrictions of the predicate group.
+     */
+    static Collection<String> getSearchPaths(final PredicateGroup root) {
+        final ValueMap pathPredicates = PredicateUtil.findPredicate(PredicateConverter.createMap(root), PathPredicateEvaluator.PATH, PathPredicateEvaluator.PATH);
+        final Set<String> searchPaths = new HashSet<>();
+
+        for (final String key : pathPredicates.keySet()) {
+            final String path = pathPredicates.get(key, String.class);
+
+            if (StringUtils.isNotBlank(path)) {
+                searchPaths.add(Text.makeCanonicalPath(path));
+            }
+        }
+
+        return searchPaths;
+    }
+
+    private static void addToPredicateGroupIfNotPresent(final PredicateGroup root, final String key, final String val) {
+        if (root.getByName(key) == null) {
+            root.add(PredicateConverter.createPredicates(ImmutableMap.<String, String>builder().
+                    put(key, val).
+                    build()));
+        }
+    }
+
+    private static boolean isPathsProvidedByRequestParams(final PagePredicate pagePredicate, final Map<String, String> requestParams) {
+        final ValueMap pathPredicates = PredicateUtil.findPredicate(requestParams, PathPredicateEvaluator.PATH, PathPredicateEvaluator.PATH);
+
+        if (pathPredicates.size() == 0) {
+            return false;
+        }
+
+        final List<String> allowedPaths = pagePredicate.getPaths();
+        final String[] allowedPathPrefixes = pagePredicate.getPaths().stream().map(path ->  StringUtils.removeEnd(path, "/") + "/").toArray(String[]::new);
+
+        boolean hasAllowed = false;
+        for (final String key : pathPredicates.keySet()) {
+            final String path = Text.makeCanonicalPath(pathPredicates.get(key, String.class));
+
+            if (StringUtils.startsWithAny(path, allowedPathPrefixes) || allowedPaths.contains(path)) {
+                hasAllowed = true;
+            } else {
+                requestParams.remove(key);
+            }
+        }
+
+        return hasAllowed;
+    }
+
+    private static void cleanParams(Map<String, String> params) {
+        params.remove("mode");
+        params.remove("layout");
+        params.remove("wcmmode");
+        params.remove("forceeditcontext");
+        params.remove(QueryCursor.REQUEST_PARAMETER);
+    }
+}
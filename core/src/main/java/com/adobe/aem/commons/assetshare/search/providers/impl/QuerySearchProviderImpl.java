@@ -23,27 +23,21 @@ import com.adobe.aem.commons.assetshare.components.predicates.PagePredicate;
 import com.adobe.aem.commons.assetshare.search.QueryParameterPostProcessor;
 import com.adobe.aem.commons.assetshare.search.SearchSafety;
 import com.adobe.aem.commons.assetshare.search.UnsafeSearchException;
+import com.adobe.aem.commons.assetshare.search.impl.cache.CachedQueryResult;
+import com.adobe.aem.commons.assetshare.search.impl.cache.QueryResultsCache;
+import com.adobe.aem.commons.assetshare.search.impl.cache.SearchCoalescer;
+import com.adobe.aem.commons.assetshare.search.impl.timing.SearchTimer;
+import com.adobe.aem.commons.assetshare.search.impl.timing.SlowSearchLog;
 import com.adobe.aem.commons.assetshare.search.providers.QuerySearchPostProcessor;
 import com.adobe.aem.commons.assetshare.search.providers.QuerySearchPreProcessor;
 import com.adobe.aem.commons.assetshare.search.providers.SearchProvider;
-import com.adobe.aem.commons.assetshare.search.results.AssetResult;
-import com.adobe.aem.commons.assetshare.search.results.Result;
 import com.adobe.aem.commons.assetshare.search.results.Results;
 import com.adobe.aem.commons.assetshare.search.results.impl.results.QueryBuilderResultsImpl;
-import com.adobe.aem.commons.assetshare.util.PredicateUtil;
-import com.day.cq.dam.api.DamConstants;
 import com.day.cq.search.*;
-import com.day.cq.search.eval.PathPredicateEvaluator;
 import com.day.cq.search.result.Hit;
 import com.day.cq.search.result.SearchResult;
-import com.day.text.Text;
-import com.google.common.collect.ImmutableMap;
-import org.apache.commons.lang3.StringUtils;
 import org.apache.sling.api.SlingHttpServletRequest;
-import org.apache.sling.api.request.RequestParameter;
-import org.apache.sling.api.resource.Resource;
 import org.apache.sling.api.resource.ResourceResolver;
-import org.apache.sling.api.resource.ValueMap;
 import org.apache.sling.models.factory.ModelFactory;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Reference;
@@ -53,16 +47,23 @@ import org.slf4j.LoggerFactory;
 
 import javax.jcr.RepositoryException;
 import javax.jcr.Session;
+import javax.jcr.Value;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 import static org.osgi.framework.Constants.SERVICE_RANKING;
 
-@Component(property = {
-        SERVICE_RANKING + ":Integer=" + Integer.MIN_VALUE
-})
+@Component(
+        service = {SearchProvider.class, QuerySearchProviderImpl.class},
+        property = {
+                SERVICE_RANKING + ":Integer=" + Integer.MIN_VALUE
+        }
+)
 public class QuerySearchProviderImpl implements SearchProvider {
     private static final Logger log = LoggerFactory.getLogger(QuerySearchProviderImpl.class);
 
+    private static final String FACETS_CACHE_KEY_SUFFIX = ":facets";
+
     @Reference
     private SearchSafety searchSafety;
 
@@ -72,6 +73,15 @@ public class QuerySearchProviderImpl implements SearchProvider {
     @Reference
     private ModelFactory modelFactory;
 
+    @Reference
+    private QueryResultsCache queryResultsCache;
+
+    @Reference
+    private SearchCoalescer searchCoalescer;
+
+    @Reference
+    private SlowSearchLog slowSearchLog;
+
     @Reference(cardinality = ReferenceCardinality.OPTIONAL)
     private QuerySearchPreProcessor querySearchPreProcessor;
 
@@ -87,53 +97,135 @@ public class QuerySearchProviderImpl implements SearchProvider {
     }
 
     public Results getResults(final SlingHttpServletRequest request) throws UnsafeSearchException, RepositoryException {
-        final ResourceResolver resourceResolver = request.getResourceResolver();
+        return getResults(request, prepare(request));
+    }
+
+    /**
+     * Builds the search's QueryBuilder predicates (via the QuerySearchPreProcessor, if registered), and checks the search is safe to execute.
+     * The JCR-SQL2 search provider prepares its searches via this as well, so searches it leaves to QueryBuilder are only prepared once.
+     *
+     * @param request the search request.
+     * @return the prepared search, whose query phase has been started.
+     * @throws UnsafeSearchException if the search would traverse the repository.
+     * @throws RepositoryException
+     */
+    PreparedSearch prepare(final SlingHttpServletRequest request) throws UnsafeSearchException, RepositoryException {
+        final long paramsStart = SearchTimer.start(request);
+        final PagePredicate pagePredicate = request.adaptTo(PagePredicate.class);
+        final QueryCursor cursor = QuerySearchParams.getCursor(request, pagePredicate);
         final PredicateGroup root;
 
         if (querySearchPreProcessor != null) {
-            root = querySearchPreProcessor.process(request, getParams(request));
+            root = querySearchPreProcessor.process(request, QuerySearchParams.getParams(request, pagePredicate, cursor, queryParametersPostProcessor));
         } else {
-            root = PredicateGroup.create(getParams(request));
+            root = PredicateGroup.create(QuerySearchParams.getParams(request, pagePredicate, cursor, queryParametersPostProcessor));
         }
 
+        SearchTimer.record(request, SearchTimer.PHASE_PARAMS, paramsStart);
+
+        final long queryStart = SearchTimer.start(request);
+
         if (!searchSafety.isSafe(request.getResourceResolver(), root)) {
             throw new UnsafeSearchException("Search query will initiate an traversing query");
         }
 
-        debugPreQuery(root);
+        return new PreparedSearch(pagePredicate, cursor, root, queryStart);
+    }
 
-        final Query query = queryBuilder.createQuery(root, resourceResolver.adaptTo(Session.class));
-        final SearchResult searchResult = query.getResult();
+    /**
+     * Executes a prepared search using QueryBuilder.
+     *
+     * @param request the search request.
+     * @param preparedSearch the search prepared via prepare(..).
+     * @return the search results.
+     * @throws RepositoryException
+     */
+    Results getResults(final SlingHttpServletRequest request, final PreparedSearch preparedSearch) throws RepositoryException {
+        final ResourceResolver resourceResolver = request.getResourceResolver();
+        final PagePredicate pagePredicate = preparedSearch.getPagePredicate();
+        final QueryCursor cursor = preparedSearch.getCursor();
+        final PredicateGroup root = preparedSearch.getRoot();
+        final long queryStart = preparedSearch.getQueryStart();
 
-        debugPostQuery(searchResult);
+        debugPreQuery(root);
 
-        final List<Result> results = new ArrayList<>();
+        final boolean facetCounts = pagePredicate.isFacetCounts();
+        final String cacheKey = getCacheKey(resourceResolver, root, facetCounts);
 
-        ResourceResolver resourceResolverLeakingReference = null;
+        if (cacheKey != null && queryResultsCache.isEnabled()) {
+            final CachedQueryResult cachedQueryResult = queryResultsCache.get(cacheKey);
 
-        for (final Hit hit : searchResult.getHits()) {
-            if (resourceResolverLeakingReference == null) {
-                resourceResolverLeakingReference = hit.getResource().getResourceResolver();
+            if (cachedQueryResult != null) {
+                SearchTimer.record(request, SearchTimer.PHASE_QUERY, queryStart);
+
+                final QueryBuilderResultsImpl resultsImpl = new QueryBuilderResultsImpl(cachedQueryResult, 0, hitPath -> QuerySearchParams.adaptHit(modelFactory, request, cursor, hitPath));
+                QuerySearchParams.applyCursor(request, pagePredicate, cursor, cachedQueryResult.getHitPaths(), resultsImpl);
+                return resultsImpl;
             }
+        }
 
-            try {
-                final Resource hitResource = resourceResolver.getResource(hit.getPath());
-                final AssetResult assetSearchResult = modelFactory.getModelFromWrappedRequest(request, hitResource, AssetResult.class);
-                if (assetSearchResult != null) {
-                    results.add(assetSearchResult);
-                }
-            } catch (RepositoryException e) {
-                log.error("Could not retrieve search result", e);
+        if (querySearchPostProcessor == null && !facetCounts && isBudgeted(pagePredicate)) {
+            final CachedQueryResult budgetedResult = executeBudgeted(request, pagePredicate, root, cacheKey, queryStart);
+
+            if (budgetedResult != null) {
+                SearchTimer.record(request, SearchTimer.PHASE_QUERY, queryStart);
+
+                final QueryBuilderResultsImpl resultsImpl = new QueryBuilderResultsImpl(budgetedResult, budgetedResult.getExecutionTimeMillis(), hitPath -> QuerySearchParams.adaptHit(modelFactory, request, cursor, hitPath));
+                QuerySearchParams.applyCursor(request, pagePredicate, cursor, budgetedResult.getHitPaths(), resultsImpl);
+                resultsImpl.getAdditionalData().put(QueryBuilderResultsImpl.ADDITIONAL_DATA_QUERY_LANGUAGE, javax.jcr.query.Query.JCR_SQL2);
+                return resultsImpl;
             }
         }
 
-        if (resourceResolverLeakingReference != null) {
-            resourceResolverLeakingReference.close();
+        if (cacheKey != null) {
+            // Identical concurrent searches share a single query execution (which is logged once, by the caller executing it); each caller adapts the hits under its own resource resolver
+            final CachedQueryResult queryResult = searchCoalescer.execute(cacheKey, () -> {
+                final Query query = queryBuilder.createQuery(root, resourceResolver.adaptTo(Session.class));
+                query.setExtractFacets(facetCounts);
+
+                final SearchResult searchResult = query.getResult();
+
+                debugPostQuery(searchResult);
+
+                final Map<String, Map<String, Long>> facets = facetCounts ? QuerySearchParams.getFacetCounts(searchResult) : null;
+                final CachedQueryResult result = new CachedQueryResult(getHitPaths(searchResult), searchResult, facets, QuerySearchParams.getSearchPaths(root));
+
+                slowSearchLog.record(request, root, result.getQueryStatement(), result.getHitPaths().size(), result.getTotalMatches(), getMillisSince(queryStart));
+
+                if (queryResultsCache.isEnabled()) {
+                    queryResultsCache.put(cacheKey, result);
+                }
+
+                return result;
+            });
+
+            SearchTimer.record(request, SearchTimer.PHASE_QUERY, queryStart);
+
+            final QueryBuilderResultsImpl resultsImpl = new QueryBuilderResultsImpl(queryResult, queryResult.getExecutionTimeMillis(), hitPath -> QuerySearchParams.adaptHit(modelFactory, request, cursor, hitPath));
+            QuerySearchParams.applyCursor(request, pagePredicate, cursor, queryResult.getHitPaths(), resultsImpl);
+            return resultsImpl;
         }
 
-        debugPostAdaptation(results);
+        final Query query = queryBuilder.createQuery(root, resourceResolver.adaptTo(Session.class));
+        query.setExtractFacets(facetCounts);
+
+        final SearchResult searchResult = query.getResult();
+
+        debugPostQuery(searchResult);
 
-        final QueryBuilderResultsImpl resultsImpl = new QueryBuilderResultsImpl(results, searchResult);
+        final Map<String, Map<String, Long>> facets = facetCounts ? QuerySearchParams.getFacetCounts(searchResult) : null;
+
+        final List<String> hitPaths = getHitPaths(searchResult);
+
+        SearchTimer.record(request, SearchTimer.PHASE_QUERY, queryStart);
+        slowSearchLog.record(request, root, searchResult.getQueryStatement(), hitPaths.size(), searchResult.getTotalMatches(), getMillisSince(queryStart));
+
+        final QueryBuilderResultsImpl resultsImpl = new QueryBuilderResultsImpl(hitPaths, searchResult, hitPath -> QuerySearchParams.adaptHit(modelFactory, request, cursor, hitPath));
+        QuerySearchParams.applyCursor(request, pagePredicate, cursor, hitPaths, resultsImpl);
+
+        if (facets != null) {
+            resultsImpl.getAdditionalData().put(QueryBuilderResultsImpl.ADDITIONAL_DATA_FACETS, facets);
+        }
 
         if (querySearchPostProcessor != null) {
             return querySearchPostProcessor.process(request, query, resultsImpl, searchResult);
@@ -142,83 +234,126 @@ public class QuerySearchProviderImpl implements SearchProvider {
         }
     }
 
+    private boolean isBudgeted(final PagePredicate pagePredicate) {
+        return pagePredicate.getTimeBudget() > 0 || pagePredicate.getReadLimit() > 0;
+    }
+
     /**
-     * Generates the QueryBuilder query params from the Page Predicate settings and the request attributes.
+     * QueryBuilder reads all the rows it needs before returning, so a search page's time budget can only be enforced by reading the rows of the equivalent JCR-SQL2 query one at a time.
+     * Searches that cannot be expressed in JCR-SQL2 are left to QueryBuilder, which only honors the read limit (via p.guessTotal).
+     * The time budget is checked as rows are read, so it does not bound queries Oak sorts in memory, as those read all matching rows before returning the first.
+     * Searches executed as JCR-SQL2 are logged (to the slow search log by the caller that executes them, not by callers joining a coalesced execution or served from the cache), and flagged via the results' additional data (see QueryBuilderResultsImpl.ADDITIONAL_DATA_QUERY_LANGUAGE).
      *
-     * @param request
-     * @return the QueryBuilder parameter map.
+     * @param request the search request; its resource resolver executes the query.
+     * @param pagePredicate the page predicate providing the time budget and read limit.
+     * @param root the predicate group to execute.
+     * @param cacheKey the QueryBuilder cache key of the query, or null if the query is neither cached nor coalesced.
+     * @param queryStart the start of the search (see SearchTimer.start(..)), which slow searches are timed from.
+     * @return the (possibly partial) query result, or null if the search cannot be expressed in JCR-SQL2.
+     * @throws RepositoryException
      */
-    private Map<String, String> getParams(final SlingHttpServletRequest request) {
-        Map<String, String> params = new HashMap<>();
-        // Copy over query params
-
-        for (final Map.Entry<String, RequestParameter[]> entry : request.getRequestParameterMap().entrySet()) {
-            params.put(entry.getKey(), entry.getValue()[0].getString());
+    private CachedQueryResult executeBudgeted(final SlingHttpServletRequest request,
+                                              final PagePredicate pagePredicate,
+                                              final PredicateGroup root,
+                                              final String cacheKey,
+                                              final long queryStart) throws RepositoryException {
+        final Map<String, String> params = PredicateConverter.createMap(root);
+        final Session session = request.getResourceResolver().adaptTo(Session.class);
+        final Sql2QueryCompiler.Template template;
+        final Map<String, Value> bindValues;
+
+        if (Sql2QueryExecutor.isUnlimited(params)) {
+            log.debug("Search requests all results; the time budget cannot be enforced");
+            return null;
         }
 
-        // Remove common junk params
-        cleanParams(params);
+        try {
+            template = Sql2QueryCompiler.compile(params);
+            bindValues = template.bind(params, session.getValueFactory());
+        } catch (Sql2QueryCompiler.UnsupportedPredicateException e) {
+            log.debug("Search cannot be expressed as JCR-SQL2; the time budget cannot be enforced", e);
+            return null;
+        }
 
-        final PagePredicate pagePredicate = request.adaptTo(PagePredicate.class);
-        final PredicateGroup root = PredicateConverter.createPredicates(params);
+        // JCR-SQL2 results order ties and count matches differently than QueryBuilder's, so they are keyed apart from QueryBuilder results
+        final String sql2CacheKey = cacheKey != null ? Sql2SearchProviderImpl.CACHE_KEY_PREFIX + cacheKey : null;
 
-        PagePredicate.ParamTypes[] excludeParamTypes = new PagePredicate.ParamTypes[]{};
+        if (sql2CacheKey != null && queryResultsCache.isEnabled()) {
+            final CachedQueryResult cachedQueryResult = queryResultsCache.get(sql2CacheKey);
 
-        if (isPathsProvidedByRequestParams(pagePredicate, params)) {
-            excludeParamTypes = new PagePredicate.ParamTypes[]{ PagePredicate.ParamTypes.PATH };
+            if (cachedQueryResult != null) {
+                return cachedQueryResult;
+            }
         }
 
-        root.addAll(pagePredicate.getPredicateGroup(excludeParamTypes));
+        log.debug("Executing budgeted search as JCR-SQL2 rather than via QueryBuilder:\n{}", template.getStatement());
 
-        // If not provided, use the defaults set on the Search Component resource
-        addToPredicateGroupIfNotPresent(root, Predicate.ORDER_BY, pagePredicate.getOrderBy());
-        addToPredicateGroupIfNotPresent(root, Predicate.ORDER_BY + "." + Predicate.PARAM_SORT, pagePredicate.getOrderBySort());
+        final SearchCoalescer.Execution execution = () -> {
+            final CachedQueryResult result = Sql2QueryExecutor.execute(session, template, bindValues, params, root, pagePredicate.getTimeBudget(), pagePredicate.getReadLimit());
 
-        params = PredicateConverter.createMap(root);
-        if (queryParametersPostProcessor != null) {
-            params = queryParametersPostProcessor.process(request, params);
-        }
+            slowSearchLog.record(request, root, result.getQueryStatement(), result.getHitPaths().size(), result.getTotalMatches(), getMillisSince(queryStart));
 
-        return params;
-    }
+            if (sql2CacheKey != null && queryResultsCache.isEnabled() && !result.isPartial()) {
+                queryResultsCache.put(sql2CacheKey, result);
+            }
 
-    private void addToPredicateGroupIfNotPresent(final PredicateGroup root, final String key, final String val) {
-        if (root.getByName(key) == null) {
-            root.add(PredicateConverter.createPredicates(ImmutableMap.<String, String>builder().
-                    put(key, val).
-                    build()));
-        }
+            return result;
+        };
+
+        return sql2CacheKey != null ? searchCoalescer.execute(sql2CacheKey, execution) : execution.execute();
     }
 
-    private boolean isPathsProvidedByRequestParams(final PagePredicate pagePredicate, final Map<String, String> requestParams) {
-        final ValueMap pathPredicates = PredicateUtil.findPredicate(requestParams, PathPredicateEvaluator.PATH, PathPredicateEvaluator.PATH);
+    /**
+     * Collects the paths of the hits, and closes the resource resolver QueryBuilder leaks when resolving hit resources.
+     *
+     * @param searchResult the QueryBuilder search result.
+     * @return the paths of the search result's hits.
+     */
+    private List<String> getHitPaths(final SearchResult searchResult) {
+        final List<String> hitPaths = new ArrayList<>();
+
+        ResourceResolver resourceResolverLeakingReference = null;
 
-        if (pathPredicates.size() == 0) {
-            return false;
+        for (final Hit hit : searchResult.getHits()) {
+            try {
+                if (resourceResolverLeakingReference == null) {
+                    resourceResolverLeakingReference = hit.getResource().getResourceResolver();
+                }
+
+                hitPaths.add(hit.getPath());
+            } catch (RepositoryException e) {
+                log.error("Could not retrieve search result", e);
+            }
         }
 
-        final List<String> allowedPaths = pagePredicate.getPaths();
-        final String[] allowedPathPrefixes = pagePredicate.getPaths().stream().map(path ->  StringUtils.removeEnd(path, "/") + "/").toArray(String[]::new);
+        if (resourceResolverLeakingReference != null) {
+            resourceResolverLeakingReference.close();
+        }
 
-        boolean hasAllowed = false;
-        for (final String key : pathPredicates.keySet()) {
-            final String path = Text.makeCanonicalPath(pathPredicates.get(key, String.class));
+        return hitPaths;
+    }
 
-            if (StringUtils.startsWithAny(path, allowedPathPrefixes) || allowedPaths.contains(path)) {
-                hasAllowed = true;
-            } else {
-                requestParams.remove(key);
-            }
+    /**
+     * Results are only cached or coalesced if the cache or coalescer is enabled, and there is no QuerySearchPostProcessor, as the post processor requires the "raw" QueryBuilder Query and SearchResult objects.
+     * The key is not derived at all otherwise, as deriving it may require looking up the user's group memberships.
+     *
+     * @param resourceResolver the resource resolver the query is executed under.
+     * @param root the predicate group to execute.
+     * @param facetCounts true if the query extracts facets; results with and without facets are keyed separately.
+     * @return the cache key for this query, or null if the results of this query should neither be cached nor coalesced.
+     * @throws RepositoryException
+     */
+    private String getCacheKey(final ResourceResolver resourceResolver, final PredicateGroup root, final boolean facetCounts) throws RepositoryException {
+        if ((queryResultsCache.isEnabled() || searchCoalescer.isEnabled()) && querySearchPostProcessor == null) {
+            final String cacheKey = queryResultsCache.getCacheKey(resourceResolver, root);
+            return facetCounts ? cacheKey + FACETS_CACHE_KEY_SUFFIX : cacheKey;
         }
 
-        return hasAllowed;
+        return null;
     }
 
-    private void cleanParams(Map<String, String> params) {
-        params.remove("mode");
-        params.remove("layout");
-        params.remove("wcmmode");
-        params.remove("forceeditcontext");
+    private long getMillisSince(final long start) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
     }
 
     private void debugPreQuery(PredicateGroup predicateGroup) {
@@ -236,6 +371,42 @@ public class QuerySearchProviderImpl implements SearchProvider {
         }
     }
 
+    /**
+     * A search whose QueryBuilder predicates were built and checked for safety, and which is ready to execute.
+     */
+    static final class PreparedSearch {
+        private final PagePredicate pagePredicate;
+        private final QueryCursor cursor;
+        private final PredicateGroup root;
+        private final long queryStart;
+
+        private PreparedSearch(final PagePredicate pagePredicate, final QueryCursor cursor, final PredicateGroup root, final long queryStart) {
+            this.pagePredicate = pagePredicate;
+            this.cursor = cursor;
+            this.root = root;
+            this.queryStart = queryStart;
+        }
+
+        PagePredicate getPagePredicate() {
+            return pagePredicate;
+        }
+
+        QueryCursor getCursor() {
+            return cursor;
+        }
+
+        PredicateGroup getRoot() {
+            return root;
+        }
+
+        /**
+         * @return the start of the search's query phase, as returned by SearchTimer.start(..).
+         */
+        long getQueryStart() {
+            return queryStart;
+        }
+    }
+
     private void debugPostQuery(SearchResult searchResult) {
         if (log.isDebugEnabled()) {
             log.debug("Executed query statement:\n{}", searchResult.getQueryStatement());
@@ -248,10 +419,4 @@ public class QuerySearchProviderImpl implements SearchProvider {
             log.debug("Search results - Execution time in ms [ {} ]", searchResult.getExecutionTimeMillis());
         }
     }
-
-    private void debugPostAdaptation(List<Result> results) {
-        if (log.isDebugEnabled()) {
-            log.debug("Adapted [ {} ] results to Result models", results.size());
-        }
-    }
 }
\ No newline at end of file
@@ -0,0 +1,708 @@
+/*
+ * Asset Share Commons
+ *
+ * Copyright (C) 2018 Adobe
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.adobe.aem.commons.assetshare.search.providers.impl;
+
+import org.apache.commons.lang3.ArrayUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.apache.jackrabbit.util.ISO8601;
+
+import javax.jcr.RepositoryException;
+import javax.jcr.Value;
+import javax.jcr.ValueFactory;
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compiles flat QueryBuilder parameter maps (as produced by PredicateConverter.createMap(..)) into parameterized JCR-SQL2 statements.
+ *
+ * Compilation is split in two:
+ * - getFingerprint(..) derives the value-free structure of the parameters; parameters with the same fingerprint compile to the same statement.
+ * - compile(..) compiles the statement template for a fingerprint, and records which request values are bound to each of its bind variables.
+ *
+ * Only the QueryBuilder predicates used by the Asset Share Commons search components are supported; any other predicate results in an UnsupportedPredicateException.
+ */
+public final class Sql2QueryCompiler {
+    private static final String SELECTOR = "a";
+    private static final String DEFAULT_NODE_TYPE = "nt:base";
+    private static final String BIND_VARIABLE_PREFIX = "v";
+
+    private static final String GROUP = "group";
+    private static final String PARAMETER_PREFIX = "p";
+
+    private static final String TYPE = "type";
+    private static final String PATH = "path";
+    private static final String PROPERTY = "property";
+    private static final String PROPERTY_VALUES = "propertyvalues";
+    private static final String TAG_ID = "tagid";
+    private static final String FULLTEXT = "fulltext";
+    private static final String RANGE_PROPERTY = "rangeproperty";
+    private static final String DATE_RANGE = "daterange";
+    private static final String RELATIVE_DATE_RANGE = "relativedaterange";
+    private static final String ORDER_BY = "orderby";
+
+    private static final String PN_OR = "or";
+    private static final String PN_NOT = "not";
+    private static final String PN_LIMIT = "limit";
+    private static final String PN_OFFSET = "offset";
+    private static final String PN_GUESS_TOTAL = "guessTotal";
+    private static final String PN_EXACT = "exact";
+    private static final String PN_FLAT = "flat";
+    private static final String PN_SELF = "self";
+    private static final String PN_PROPERTY = "property";
+    private static final String PN_OPERATION = "operation";
+    private static final String PN_AND = "and";
+    private static final String PN_VALUE = "value";
+    private static final String PN_VALUES = "values";
+    private static final String PN_DELIMITER = "delimiter";
+    private static final String PN_REL_PATH = "relPath";
+    private static final String PN_LOWER_BOUND = "lowerBound";
+    private static final String PN_LOWER_OPERATION = "lowerOperation";
+    private static final String PN_UPPER_BOUND = "upperBound";
+    private static final String PN_UPPER_OPERATION = "upperOperation";
+    private static final String PN_DECIMAL = "decimal";
+    private static final String PN_SORT = "sort";
+
+    private static final String OP_EQUALS = "equals";
+    private static final String OP_UNEQUALS = "unequals";
+    private static final String OP_LIKE = "like";
+    private static final String OP_NOT = "not";
+    private static final String OP_EXISTS = "exists";
+
+    private static final String DEFAULT_DELIMITER = ",";
+    private static final String DEFAULT_TAGS_PROPERTY = "cq:tags";
+
+    // Request values that are bound to the statement, rather than being part of its structure
+    private static final Set<String> BOUND_PARAMS = new HashSet<>(Arrays.asList(PN_VALUE, PN_VALUES, FULLTEXT, TAG_ID, PN_LOWER_BOUND, PN_UPPER_BOUND));
+    private static final Set<String> PAGING_PARAMS = new HashSet<>(Arrays.asList(PN_LIMIT, PN_OFFSET, PN_GUESS_TOTAL));
+
+    private static final Pattern INDEXED_NAME = Pattern.compile("^(\\d+)_(.+)$");
+    private static final Pattern RELATIVE_DATE = Pattern.compile("(\\d+)\\s*([smhdwMy])");
+
+    // Orders indexed names (ie. 2_group before 10_group) the way QueryBuilder does
+    private static final Comparator<String> NAME_ORDER = Comparator.comparingInt(Sql2QueryCompiler::getIndex).thenComparing(Comparator.naturalOrder());
+
+    private Sql2QueryCompiler() {
+    }
+
+    /**
+     * @param params the flat QueryBuilder parameters.
+     * @return the value-free structure of the parameters.
+     */
+    public static String getFingerprint(final Map<String, String> params) {
+        final StringBuilder sb = new StringBuilder();
+
+        for (final Map.Entry<String, String> entry : new TreeMap<>(params).entrySet()) {
+            sb.append(entry.getKey()).append('=');
+
+            if (isBoundParam(entry.getKey(), params)) {
+                if (StringUtils.isNotBlank(entry.getValue())) {
+                    sb.append('?').append(splitValues(entry.getKey(), params).length);
+                }
+            } else {
+                sb.append(entry.getValue());
+            }
+
+            sb.append('\n');
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * @param params the flat QueryBuilder parameters.
+     * @return the compiled statement template.
+     * @throws UnsupportedPredicateException if the parameters contain predicates that cannot be compiled to JCR-SQL2.
+     */
+    public static Template compile(final Map<String, String> params) throws UnsupportedPredicateException {
+        return new Compilation(params).compile();
+    }
+
+    /**
+     * @param params the flat QueryBuilder parameters.
+     * @param name the name of the root QueryBuilder parameter (ie. limit).
+     * @return the value of the root QueryBuilder parameter (p.name), or null.
+     */
+    public static String getParameter(final Map<String, String> params, final String name) {
+        return params.get(PARAMETER_PREFIX + "." + name);
+    }
+
+    private static boolean isBoundParam(final String key, final Map<String, String> params) {
+        final String parentKey = StringUtils.substringBeforeLast(key, ".");
+        final String name = getName(StringUtils.substringAfterLast("." + key, "."));
+
+        if (PARAMETER_PREFIX.equals(parentKey)) {
+            return PAGING_PARAMS.contains(name);
+        } else if (PN_VALUE.equals(name) && OP_EXISTS.equals(params.get(parentKey + "." + PN_OPERATION))) {
+            // The value of an exists operation selects between IS NULL and IS NOT NULL
+            return false;
+        }
+
+        return BOUND_PARAMS.contains(name);
+    }
+
+    private static String[] splitValues(final String key, final Map<String, String> params) {
+        final String name = getName(StringUtils.substringAfterLast("." + key, "."));
+        final String value = params.get(key);
+
+        if (PN_VALUES.equals(name)) {
+            final String parentKey = StringUtils.substringBeforeLast(key, ".");
+            return StringUtils.split(value, StringUtils.defaultIfEmpty(params.get(parentKey + "." + PN_DELIMITER), DEFAULT_DELIMITER));
+        }
+
+        return new String[]{ value };
+    }
+
+    private static String getName(final String indexedName) {
+        final Matcher matcher = INDEXED_NAME.matcher(indexedName);
+        return matcher.matches() ? matcher.group(2) : indexedName;
+    }
+
+    private static int getIndex(final String indexedName) {
+        final Matcher matcher = INDEXED_NAME.matcher(indexedName);
+        return matcher.matches() ? NumberUtils.toInt(matcher.group(1), 0) : 0;
+    }
+
+    private static String escapeName(final String name) throws UnsupportedPredicateException {
+        if (StringUtils.isBlank(name) || StringUtils.containsAny(name, '*', '[', '\'', '"')) {
+            throw new UnsupportedPredicateException("Unsupported property or path [ " + name + " ]");
+        }
+
+        return "[" + StringUtils.replace(name, "]", "]]") + "]";
+    }
+
+    private static String getPropertyPath(final String property) throws UnsupportedPredicateException {
+        final String propertyPath = StringUtils.removeStart(StringUtils.replace(property, "/@", "/"), "@");
+        return SELECTOR + "." + escapeName(propertyPath);
+    }
+
+    /**
+     * A compiled, parameterized JCR-SQL2 statement.
+     */
+    public static final class Template {
+        private final String statement;
+        private final List<BindSlot> slots;
+
+        private Template(final String statement, final List<BindSlot> slots) {
+            this.statement = statement;
+            this.slots = Collections.unmodifiableList(slots);
+        }
+
+        public String getStatement() {
+            return statement;
+        }
+
+        /**
+         * @param params the flat QueryBuilder parameters; these must have the fingerprint this template was compiled for.
+         * @param valueFactory the value factory used to create the bind values.
+         * @return the bind variable values, by bind variable name.
+         * @throws UnsupportedPredicateException if a request value cannot be converted to the required type.
+         * @throws RepositoryException
+         */
+        public Map<String, Value> bind(final Map<String, String> params, final ValueFactory valueFactory) throws UnsupportedPredicateException, RepositoryException {
+            final Map<String, Value> values = new LinkedHashMap<>();
+
+            for (int i = 0; i < slots.size(); i++) {
+                values.put(BIND_VARIABLE_PREFIX + i, slots.get(i).getValue(params, valueFactory));
+            }
+
+            return values;
+        }
+    }
+
+    enum ValueType {
+        STRING,
+        DECIMAL,
+        DATE,
+        RELATIVE_DATE,
+        SUBTAG_PATTERN
+    }
+
+    private static final class BindSlot {
+        private final String key;
+        private final int index;
+        private final ValueType type;
+
+        private BindSlot(final String key, final int index, final ValueType type) {
+            this.key = key;
+            this.index = index;
+            this.type = type;
+        }
+
+        private Value getValue(final Map<String, String> params, final ValueFactory valueFactory) throws UnsupportedPredicateException {
+            final String value = splitValues(key, params)[index];
+
+            switch (type) {
+                case DECIMAL:
+                    try {
+                        return valueFactory.createValue(new BigDecimal(StringUtils.trim(value)));
+                    } catch (NumberFormatException e) {
+                        throw new UnsupportedPredicateException("Invalid decimal [ " + value + " ]");
+                    }
+                case DATE:
+                    try {
+                        return valueFactory.createValue(parseDate(value));
+                    } catch (NumberFormatException e) {
+                        throw new UnsupportedPredicateException("Invalid date [ " + value + " ]");
+                    }
+                case RELATIVE_DATE:
+                    try {
+                        return valueFactory.createValue(parseRelativeDate(value));
+                    } catch (NumberFormatException e) {
+                        throw new UnsupportedPredicateException("Invalid relative date [ " + value + " ]");
+                    }
+                case SUBTAG_PATTERN:
+                    return valueFactory.createValue(getSubtagPattern(value));
+                default:
+                    return valueFactory.createValue(value);
+            }
+        }
+
+        /**
+         * @param tagId the tag ID.
+         * @return the LIKE pattern matching the IDs of all the tag's subtags; the subtags of a namespace (ie. "ns:") are "ns:child", else "ns:tag/child".
+         */
+        private String getSubtagPattern(final String tagId) {
+            final String escapedTagId = StringUtils.replaceEach(tagId, new String[]{"\\", "%", "_"}, new String[]{"\\\\", "\\%", "\\_"});
+            return escapedTagId + (StringUtils.endsWith(tagId, ":") ? "%" : "/%");
+        }
+
+        private Calendar parseDate(final String value) throws UnsupportedPredicateException {
+            Calendar calendar = ISO8601.parse(StringUtils.trim(value));
+
+            if (calendar == null && StringUtils.length(StringUtils.trim(value)) == 10) {
+                // A date without time (yyyy-MM-dd) is the start of that day in the server's time zone
+                final Calendar date = ISO8601.parse(StringUtils.trim(value) + "T00:00:00.000Z");
+
+                if (date != null) {
+                    calendar = Calendar.getInstance();
+                    calendar.clear();
+                    calendar.set(date.get(Calendar.YEAR), date.get(Calendar.MONTH), date.get(Calendar.DAY_OF_MONTH));
+                }
+            }
+
+            if (calendar == null && NumberUtils.isDigits(StringUtils.trim(value))) {
+                calendar = Calendar.getInstance();
+                calendar.setTimeInMillis(Long.parseLong(StringUtils.trim(value)));
+            }
+
+            if (calendar == null) {
+                throw new UnsupportedPredicateException("Invalid date [ " + value + " ]");
+            }
+
+            return calendar;
+        }
+
+        private Calendar parseRelativeDate(final String value) throws UnsupportedPredicateException {
+            final String trimmed = StringUtils.deleteWhitespace(value);
+            final boolean negative = StringUtils.startsWith(trimmed, "-");
+            final String duration = StringUtils.removeStart(trimmed, "-");
+            final Calendar calendar = Calendar.getInstance();
+
+            if (NumberUtils.isDigits(duration)) {
+                calendar.add(Calendar.MILLISECOND, (negative ? -1 : 1) * Integer.parseInt(duration));
+                return calendar;
+            }
+
+            final Matcher matcher = RELATIVE_DATE.matcher(duration);
+            int end = 0;
+
+            while (matcher.find() && matcher.start() == end) {
+                final int amount = (negative ? -1 : 1) * Integer.parseInt(matcher.group(1));
+
+                switch (matcher.group(2)) {
+                    case "s": calendar.add(Calendar.SECOND, amount); break;
+                    case "m": calendar.add(Calendar.MINUTE, amount); break;
+                    case "h": calendar.add(Calendar.HOUR_OF_DAY, amount); break;
+                    case "d": calendar.add(Calendar.DAY_OF_MONTH, amount); break;
+                    case "w": calendar.add(Calendar.WEEK_OF_YEAR, amount); break;
+                    case "M": calendar.add(Calendar.MONTH, amount); break;
+                    default: calendar.add(Calendar.YEAR, amount); break;
+                }
+
+                end = matcher.end();
+            }
+
+            if (end == 0 || end != duration.length()) {
+                throw new UnsupportedPredicateException("Invalid relative date [ " + value + " ]");
+            }
+
+            return calendar;
+        }
+    }
+
+    public static final class UnsupportedPredicateException extends Exception {
+        UnsupportedPredicateException(final String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * The parsed tree of the flat QueryBuilder parameters.
+     */
+    private static final class Group {
+        private final String prefix;
+        private final Map<String, String> params = new HashMap<>();
+        private final SortedMap<String, Object> children = new TreeMap<>(NAME_ORDER);
+
+        private Group(final String prefix) {
+            this.prefix = prefix;
+        }
+
+        private Group getGroup(final String name) {
+            return (Group) children.computeIfAbsent(name, n -> new Group(prefix + n + "."));
+        }
+
+        private Node getNode(final String name) {
+            return (Node) children.computeIfAbsent(name, n -> new Node(getName(n), prefix + n));
+        }
+    }
+
+    private static final class Node {
+        private final String type;
+        private final String key;
+        private final SortedMap<String, String> params = new TreeMap<>(NAME_ORDER);
+
+        private Node(final String type, final String key) {
+            this.type = type;
+            this.key = key;
+        }
+
+        private String getKey(final String param) {
+            return StringUtils.equals(type, param) ? key : key + "." + param;
+        }
+
+        private String get(final String param) {
+            return params.get(param);
+        }
+
+        private void checkParams(final String... allowed) throws UnsupportedPredicateException {
+            for (final String param : params.keySet()) {
+                if (!StringUtils.equals(type, param) && !ArrayUtils.contains(allowed, getName(param))) {
+                    throw new UnsupportedPredicateException("Unsupported parameter [ " + getKey(param) + " ]");
+                }
+            }
+        }
+    }
+
+    private static final class Compilation {
+        private final Map<String, String> params;
+        private final List<BindSlot> slots = new ArrayList<>();
+        private final List<String> orderings = new ArrayList<>();
+        private String nodeType = null;
+
+        private Compilation(final Map<String, String> params) {
+            this.params = params;
+        }
+
+        private Template compile() throws UnsupportedPredicateException {
+            final Group root = parse();
+            final String constraint = compileGroup(root, true);
+            final StringBuilder statement = new StringBuilder("SELECT * FROM ");
+
+            statement.append(escapeName(StringUtils.defaultString(nodeType, DEFAULT_NODE_TYPE))).append(" AS ").append(SELECTOR);
+
+            if (constraint != null) {
+                statement.append(" WHERE ").append(constraint);
+            }
+
+            if (!orderings.isEmpty()) {
+                statement.append(" ORDER BY ").append(StringUtils.join(orderings, ", "));
+            }
+
+            return new Template(statement.toString(), slots);
+        }
+
+        private Group parse() throws UnsupportedPredicateException {
+            final Group root = new Group("");
+
+            for (final Map.Entry<String, String> entry : params.entrySet()) {
+                final String[] segments = StringUtils.split(entry.getKey(), '.');
+                Group group = root;
+                int i = 0;
+
+                while (i < segments.length && GROUP.equals(getName(segments[i]))) {
+                    group = group.getGroup(segments[i++]);
+                }
+
+                if (i == segments.length - 2 && PARAMETER_PREFIX.equals(segments[i])) {
+                    group.params.put(segments[i + 1], entry.getValue());
+                } else if (i == segments.length - 1) {
+                    final Node node = group.getNode(segments[i]);
+                    node.params.put(node.type, entry.getValue());
+                } else if (i == segments.length - 2) {
+                    group.getNode(segments[i]).params.put(segments[i + 1], entry.getValue());
+                } else {
+                    throw new UnsupportedPredicateException("Unsupported parameter [ " + entry.getKey() + " ]");
+                }
+            }
+
+            return root;
+        }
+
+        private String compileGroup(final Group group, final boolean isRoot) throws UnsupportedPredicateException {
+            // Other parameters of the root group (p.hits, p.excerpt, ..) do not affect the statement
+            for (final String param : group.params.keySet()) {
+                if (!isRoot && !PN_OR.equals(param) && !PN_NOT.equals(param)) {
+                    throw new UnsupportedPredicateException("Unsupported group parameter [ " + group.prefix + PARAMETER_PREFIX + "." + param + " ]");
+                }
+            }
+
+            final List<String> constraints = new ArrayList<>();
+
+            for (final Object child : group.children.values()) {
+                final String constraint;
+
+                if (child instanceof Group) {
+                    constraint = compileGroup((Group) child, false);
+                } else {
+                    constraint = compileNode((Node) child, isRoot);
+                }
+
+                if (constraint != null) {
+                    constraints.add(constraint);
+                }
+            }
+
+            if (constraints.isEmpty()) {
+                return null;
+            }
+
+            String constraint = join(constraints, "true".equals(group.params.get(PN_OR)) ? " OR " : " AND ");
+
+            if ("true".equals(group.params.get(PN_NOT))) {
+                constraint = "NOT " + (constraints.size() > 1 ? constraint : "(" + constraint + ")");
+            }
+
+            return constraint;
+        }
+
+        private String compileNode(final Node node, final boolean isRoot) throws UnsupportedPredicateException {
+            switch (node.type) {
+                case TYPE:
+                    return compileType(node, isRoot);
+                case PATH:
+                    return compilePath(node);
+                case PROPERTY:
+                case PROPERTY_VALUES:
+                case TAG_ID:
+                    return compileProperty(node);
+                case FULLTEXT:
+                    return compileFulltext(node);
+                case RANGE_PROPERTY:
+                    return compileRange(node, "true".equals(node.get(PN_DECIMAL)) ? ValueType.DECIMAL : ValueType.STRING);
+                case DATE_RANGE:
+                    return compileRange(node, ValueType.DATE);
+                case RELATIVE_DATE_RANGE:
+                    return compileRange(node, ValueType.RELATIVE_DATE);
+                case ORDER_BY:
+                    return compileOrderBy(node);
+                default:
+                    throw new UnsupportedPredicateException("Unsupported predicate [ " + node.key + " ]");
+            }
+        }
+
+        private String compileType(final Node node, final boolean isRoot) throws UnsupportedPredicateException {
+            node.checkParams();
+
+            if (!isRoot || nodeType != null) {
+                throw new UnsupportedPredicateException("Only a single, top-level type predicate is supported");
+            }
+
+            nodeType = node.get(TYPE);
+            return null;
+        }
+
+        private String compilePath(final Node node) throws UnsupportedPredicateException {
+            node.checkParams(PN_EXACT, PN_FLAT, PN_SELF);
+
+            final String path = StringUtils.trimToNull(node.get(PATH));
+
+            if (path == null) {
+                return null;
+            }
+
+            final String escapedPath = escapeName(path.length() > 1 ? StringUtils.removeEnd(path, "/") : path);
+
+            if ("true".equals(node.get(PN_EXACT))) {
+                return "ISSAMENODE(" + SELECTOR + ", " + escapedPath + ")";
+            } else if ("true".equals(node.get(PN_FLAT))) {
+                return "ISCHILDNODE(" + SELECTOR + ", " + escapedPath + ")";
+            } else if ("true".equals(node.get(PN_SELF))) {
+                return "(ISSAMENODE(" + SELECTOR + ", " + escapedPath + ") OR ISDESCENDANTNODE(" + SELECTOR + ", " + escapedPath + "))";
+            }
+
+            return "ISDESCENDANTNODE(" + SELECTOR + ", " + escapedPath + ")";
+        }
+
+        private String compileProperty(final Node node) throws UnsupportedPredicateException {
+            node.checkParams(PN_PROPERTY, PN_OPERATION, PN_AND, PN_VALUE, PN_VALUES, PN_DELIMITER);
+
+            final String property = TAG_ID.equals(node.type) ? StringUtils.defaultIfBlank(node.get(PN_PROPERTY), DEFAULT_TAGS_PROPERTY) : node.get(PN_PROPERTY);
+            final String propertyPath = getPropertyPath(property);
+            final String operation = StringUtils.defaultIfBlank(node.get(PN_OPERATION), OP_EQUALS);
+
+            if (TAG_ID.equals(node.type) && !OP_EQUALS.equals(operation)) {
+                throw new UnsupportedPredicateException("Unsupported tag ID operation [ " + operation + " ]");
+            }
+
+            if (OP_EXISTS.equals(operation)) {
+                return propertyPath + ("false".equals(node.get(PN_VALUE)) ? " IS NULL" : " IS NOT NULL");
+            } else if (OP_NOT.equals(operation)) {
+                return propertyPath + " IS NULL";
+            }
+
+            final String operator;
+            if (OP_EQUALS.equals(operation)) {
+                operator = " = ";
+            } else if (OP_UNEQUALS.equals(operation)) {
+                operator = " <> ";
+            } else if (OP_LIKE.equals(operation)) {
+                operator = " LIKE ";
+            } else {
+                throw new UnsupportedPredicateException("Unsupported property operation [ " + operation + " ]");
+            }
+
+            final List<String> constraints = new ArrayList<>();
+
+            for (final Map.Entry<String, String> param : node.params.entrySet()) {
+                final String name = getName(param.getKey());
+
+                if ((PN_VALUE.equals(name) || PN_VALUES.equals(name) || TAG_ID.equals(param.getKey())) && StringUtils.isNotBlank(param.getValue())) {
+                    final String key = node.getKey(param.getKey());
+                    final int count = splitValues(key, params).length;
+
+                    for (int i = 0; i < count; i++) {
+                        if (TAG_ID.equals(node.type)) {
+                            // Like QueryBuilder's tagid predicate, a tag also matches all its subtags
+                            constraints.add("(" + propertyPath + operator + bind(key, i, ValueType.STRING)
+                                    + " OR " + propertyPath + " LIKE " + bind(key, i, ValueType.SUBTAG_PATTERN) + ")");
+                        } else {
+                            constraints.add(propertyPath + operator + bind(key, i, ValueType.STRING));
+                        }
+                    }
+                }
+            }
+
+            if (constraints.isEmpty()) {
+                return null;
+            }
+
+            return join(constraints, "true".equals(node.get(PN_AND)) ? " AND " : " OR ");
+        }
+
+        private String compileFulltext(final Node node) throws UnsupportedPredicateException {
+            node.checkParams(PN_REL_PATH);
+
+            if (StringUtils.isBlank(node.get(FULLTEXT))) {
+                return null;
+            }
+
+            final String relPath = StringUtils.trimToNull(node.get(PN_REL_PATH));
+            final String scope;
+
+            if (relPath == null) {
+                scope = SELECTOR + ".*";
+            } else if (StringUtils.startsWith(relPath, "@") || StringUtils.contains(relPath, "/@")) {
+                scope = getPropertyPath(relPath);
+            } else {
+                scope = SELECTOR + "." + escapeName(StringUtils.removeEnd(relPath, "/") + "/*");
+            }
+
+            return "CONTAINS(" + scope + ", " + bind(node.getKey(FULLTEXT), 0, ValueType.STRING) + ")";
+        }
+
+        private String compileRange(final Node node, final ValueType valueType) throws UnsupportedPredicateException {
+            node.checkParams(PN_PROPERTY, PN_LOWER_BOUND, PN_LOWER_OPERATION, PN_UPPER_BOUND, PN_UPPER_OPERATION, PN_DECIMAL);
+
+            final String propertyPath = getPropertyPath(node.get(PN_PROPERTY));
+            final List<String> constraints = new ArrayList<>();
+
+            if (StringUtils.isNotBlank(node.get(PN_LOWER_BOUND))) {
+                final String operation = StringUtils.defaultIfBlank(node.get(PN_LOWER_OPERATION), ">");
+
+                if (!">".equals(operation) && !">=".equals(operation)) {
+                    throw new UnsupportedPredicateException("Unsupported lower bound operation [ " + operation + " ]");
+                }
+
+                constraints.add(propertyPath + " " + operation + " " + bind(node.getKey(PN_LOWER_BOUND), 0, valueType));
+            }
+
+            if (StringUtils.isNotBlank(node.get(PN_UPPER_BOUND))) {
+                final String operation = StringUtils.defaultIfBlank(node.get(PN_UPPER_OPERATION), "<");
+
+                if (!"<".equals(operation) && !"<=".equals(operation)) {
+                    throw new UnsupportedPredicateException("Unsupported upper bound operation [ " + operation + " ]");
+                }
+
+                constraints.add(propertyPath + " " + operation + " " + bind(node.getKey(PN_UPPER_BOUND), 0, valueType));
+            }
+
+            if (constraints.isEmpty()) {
+                return null;
+            }
+
+            return join(constraints, " AND ");
+        }
+
+        private String compileOrderBy(final Node node) throws UnsupportedPredicateException {
+            node.checkParams(PN_SORT);
+
+            final String orderBy = StringUtils.trimToNull(node.get(ORDER_BY));
+
+            if (orderBy == null) {
+                return null;
+            }
+
+            final String operand;
+
+            if ("@jcr:score".equals(orderBy)) {
+                operand = "SCORE(" + SELECTOR + ")";
+            } else if (StringUtils.startsWith(orderBy, "@")) {
+                operand = getPropertyPath(orderBy);
+            } else if (PATH.equals(orderBy)) {
+                operand = SELECTOR + ".[jcr:path]";
+            } else if ("nodename".equals(orderBy)) {
+                operand = "NAME(" + SELECTOR + ")";
+            } else {
+                throw new UnsupportedPredicateException("Unsupported order by [ " + orderBy + " ]");
+            }
+
+            orderings.add(operand + ("desc".equalsIgnoreCase(node.get(PN_SORT)) ? " DESC" : " ASC"));
+
+            return null;
+        }
+
+        private String bind(final String key, final int index, final ValueType valueType) {
+            slots.add(new BindSlot(key, index, valueType));
+            return "$" + BIND_VARIABLE_PREFIX + (slots.size() - 1);
+        }
+
+        private String join(final List<String> constraints, final String operator) {
+            if (constraints.size() == 1) {
+                return constraints.get(0);
+            }
+
+            return "(" + StringUtils.join(constraints, operator) + ")";
+        }
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Asset Share Commons
+ *
+ * Copyright (C) 2018 Adobe
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.adobe.aem.commons.assetshare.search.providers.impl;
+
+import com.adobe.aem.commons.assetshare.search.impl.cache.CachedQueryResult;
+import com.day.cq.search.Predicate;
+import com.day.cq.search.PredicateGroup;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+import javax.jcr.Value;
+import javax.jcr.query.Query;
+import javax.jcr.query.RowIterator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executes compiled JCR-SQL2 statement templates, reading the result rows one at a time so reading can be stopped by a time budget or read limit.
+ *
+ * The time budget is checked between rows; ordered statements that are not index-ordered are sorted by Oak in memory, which reads every matching row before the first row is returned, so the time budget cannot stop them early.
+ */
+final class Sql2QueryExecutor {
+    private static final Logger log = LoggerFactory.getLogger(Sql2QueryExecutor.class);
+
+    private static final long DEFAULT_LIMIT = 10;
+
+    private Sql2QueryExecutor() {
+    }
+
+    /**
+     * QueryBuilder's p.limit=-1 returns all results; such searches are left to QueryBuilder, as they cannot be bounded by a page.
+     *
+     * @param params the flat QueryBuilder parameters.
+     * @return true if the search requests all results rather than a page of results.
+     */
+    static boolean isUnlimited(final Map<String, String> params) {
+        return NumberUtils.toLong(Sql2QueryCompiler.getParameter(params, Predicate.PARAM_LIMIT), DEFAULT_LIMIT) < 0;
+    }
+
+    /**
+     * Executes the statement, reading at most as many rows as required to return the page of hits and to guess the total.
+     *
+     * If the time budget expires or the read limit is reached, reading stops and the hits collected so far are returned; if the page of hits was not yet filled, the result is partial.
+     * Unlimited searches (see isUnlimited(..)) must not be executed by this method.
+     *
+     * @param session the session to execute the query under.
+     * @param template the compiled statement template.
+     * @param bindValues the request values bound to the statement's variables.
+     * @param params the flat QueryBuilder parameters, providing the paging parameters.
+     * @param root the predicate group being executed.
+     * @param timeBudget the time in milliseconds after which reading stops, or 0 for no time budget.
+     * @param maxRows the maximum number of rows to read, or 0 for no read limit.
+     * @return the query result.
+     * @throws RepositoryException
+     */
+    static CachedQueryResult execute(final Session session,
+                                     final Sql2QueryCompiler.Template template,
+                                     final Map<String, Value> bindValues,
+                                     final Map<String, String> params,
+                                     final PredicateGroup root,
+                                     final long timeBudget,
+                                     final long maxRows) throws RepositoryException {
+        final long start = System.currentTimeMillis();
+        final long deadline = timeBudget > 0 ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeBudget) : 0;
+
+        final long limit = Math.max(1, NumberUtils.toLong(Sql2QueryCompiler.getParameter(params, Predicate.PARAM_LIMIT), DEFAULT_LIMIT));
+        final long offset = Math.max(0, NumberUtils.toLong(Sql2QueryCompiler.getParameter(params, Predicate.PARAM_OFFSET), 0));
+        final long readLimit = getReadLimit(Sql2QueryCompiler.getParameter(params, Predicate.PARAM_GUESS_TOTAL), limit, offset, maxRows);
+
+        final Query query = session.getWorkspace().getQueryManager().createQuery(template.getStatement(), Query.JCR_SQL2);
+
+        for (final Map.Entry<String, Value> bindValue : bindValues.entrySet()) {
+            query.bindValue(bindValue.getKey(), bindValue.getValue());
+        }
+
+        query.setOffset(offset);
+        if (readLimit > 0) {
+            query.setLimit(readLimit);
+        }
+
+        final List<String> hitPaths = new ArrayList<>();
+        final RowIterator rows = query.execute().getRows();
+        long count = 0;
+        boolean expired = false;
+
+        while (rows.hasNext()) {
+            if (deadline > 0 && System.nanoTime() - deadline > 0) {
+                expired = true;
+                break;
+            }
+
+            final String path = rows.nextRow().getPath();
+
+            if (count++ < limit) {
+                hitPaths.add(path);
+            }
+        }
+
+        final long total = offset + count;
+        final boolean more = expired || (readLimit > 0 && count >= readLimit);
+        final boolean partial = (expired || (maxRows > 0 && count >= maxRows)) && hitPaths.size() < limit;
+        final long nextOffset = (more || offset + hitPaths.size() < total) ? offset + hitPaths.size() : -1;
+        final long executionTime = System.currentTimeMillis() - start;
+
+        if (log.isDebugEnabled()) {
+            log.debug("Executed JCR-SQL2 statement:\n{}", template.getStatement());
+            log.debug("Search results - Hits size [ {} ]", hitPaths.size());
+            log.debug("Search results - Rows read [ {} ]", count);
+            log.debug("Search results - Time budget expired [ {} ]", expired);
+            log.debug("Search results - Execution time in ms [ {} ]", executionTime);
+        }
+
+        return new CachedQueryResult(hitPaths, total, offset, nextOffset, more, partial, executionTime, template.getStatement(), QuerySearchParams.getSearchPaths(root));
+    }
+
+    /**
+     * Mirrors QueryBuilder's p.guessTotal; rows beyond the page are only read to count the (guessed) total.
+     *
+     * @param guessTotal the p.guessTotal parameter.
+     * @param limit the page size.
+     * @param offset the offset of the page.
+     * @param maxRows the read limit of the search page, or 0 for no read limit.
+     * @return the maximum number of rows to read, or 0 to read all rows.
+     */
+    private static long getReadLimit(final String guessTotal, final long limit, final long offset, final long maxRows) {
+        long readLimit = 0;
+
+        if ("true".equalsIgnoreCase(guessTotal)) {
+            readLimit = limit + 1;
+        } else if (NumberUtils.isDigits(guessTotal)) {
+            readLimit = Math.max(limit + 1, NumberUtils.toLong(guessTotal, Long.MAX_VALUE) - offset);
+        }
+
+        if (maxRows > 0) {
+            readLimit = readLimit > 0 ? Math.min(readLimit, maxRows) : maxRows;
+        }
+
+        return readLimit;
+    }
+}
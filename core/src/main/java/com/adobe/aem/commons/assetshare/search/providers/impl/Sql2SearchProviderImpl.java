@@ -0,0 +1,260 @@
+/*
+ * Asset Share Commons
+ *
+ * Copyright (C) 2018 Adobe
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.adobe.aem.commons.assetshare.search.providers.impl;
+
+import com.adobe.aem.commons.assetshare.components.predicates.PagePredicate;
+import com.adobe.aem.commons.assetshare.search.UnsafeSearchException;
+import com.adobe.aem.commons.assetshare.search.impl.cache.CachedQueryResult;
+import com.adobe.aem.commons.assetshare.search.impl.cache.QueryResultsCache;
+import com.adobe.aem.commons.assetshare.search.impl.cache.SearchCoalescer;
+import com.adobe.aem.commons.assetshare.search.impl.timing.SearchTimer;
+import com.adobe.aem.commons.assetshare.search.impl.timing.SlowSearchLog;
+import com.adobe.aem.commons.assetshare.search.providers.QuerySearchPostProcessor;
+import com.adobe.aem.commons.assetshare.search.providers.SearchProvider;
+import com.adobe.aem.commons.assetshare.search.results.Results;
+import com.adobe.aem.commons.assetshare.search.results.impl.results.QueryBuilderResultsImpl;
+import com.day.cq.search.PredicateConverter;
+import com.day.cq.search.PredicateGroup;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.sling.api.SlingHttpServletRequest;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.models.factory.ModelFactory;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Modified;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ReferenceCardinality;
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.Designate;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+import javax.jcr.Value;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpSession;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.osgi.framework.Constants.SERVICE_RANKING;
+
+/**
+ * A SearchProvider that executes the search's QueryBuilder predicates as a parameterized JCR-SQL2 query, bypassing QueryBuilder's XPath translation.
+ *
+ * The statement is compiled once per predicate structure (the search page's configuration and the predicates used by the request), and only the request values are bound per search.
+ * Searches whose predicates cannot be expressed in JCR-SQL2 are delegated to the QueryBuilder based QuerySearchProviderImpl.
+ */
+@Component(property = {
+        SERVICE_RANKING + ":Integer=" + (Integer.MIN_VALUE + 1)
+})
+@Designate(ocd = Sql2SearchProviderImpl.Cfg.class)
+public class Sql2SearchProviderImpl implements SearchProvider {
+    private static final Logger log = LoggerFactory.getLogger(Sql2SearchProviderImpl.class);
+
+    // Results of this provider are keyed separately from the QueryBuilder search provider's results for the same parameters
+    static final String CACHE_KEY_PREFIX = "sql2:";
+
+    @Reference
+    private ModelFactory modelFactory;
+
+    @Reference
+    private QueryResultsCache queryResultsCache;
+
+    @Reference
+    private SearchCoalescer searchCoalescer;
+
+    @Reference
+    private SlowSearchLog slowSearchLog;
+
+    @Reference
+    private QuerySearchProviderImpl querySearchProvider;
+
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL)
+    private QuerySearchPostProcessor querySearchPostProcessor;
+
+    private Cache<String, Optional<Sql2QueryCompiler.Template>> templates;
+
+    private Cfg cfg;
+
+    /**
+     * QuerySearchPostProcessors require the QueryBuilder Query and SearchResult objects, so searches are left to the QuerySearchProviderImpl when one is registered.
+     *
+     * @param request the search request.
+     * @return true if this provider is enabled, and the request is sampled to use JCR-SQL2.
+     */
+    public boolean accepts(SlingHttpServletRequest request) {
+        return cfg.enabled()
+                && querySearchPostProcessor == null
+                && getSample(request) < cfg.sample_percentage();
+    }
+
+    /**
+     * Samples by visitor rather than by request, so all pages of a visitor's search are executed by the same engine (which order ties differently), and each visitor stays in one cohort.
+     *
+     * Visitors are identified by the configured sample cookie, else by their HTTP session (which is never created for this), else by their user ID.
+     * All anonymous visitors share a user ID, so without a cookie or session they all fall into the same cohort.
+     *
+     * @param request the search request.
+     * @return the request's sample (0 - 99).
+     */
+    private int getSample(final SlingHttpServletRequest request) {
+        final Cookie cookie = StringUtils.isNotBlank(cfg.sample_cookie()) ? request.getCookie(cfg.sample_cookie()) : null;
+        final HttpSession session = request.getSession(false);
+        final String visitorId;
+
+        if (cookie != null && StringUtils.isNotBlank(cookie.getValue())) {
+            visitorId = cookie.getValue();
+        } else if (session != null) {
+            visitorId = session.getId();
+        } else {
+            visitorId = StringUtils.defaultString(request.getResourceResolver().getUserID());
+        }
+
+        return Math.floorMod(visitorId.hashCode(), 100);
+    }
+
+    /**
+     * The search is prepared via the QuerySearchProviderImpl, so searches that cannot be executed as JCR-SQL2 are passed to it as prepared, rather than being prepared (and pre-processed) again.
+     *
+     * @param request the search request.
+     * @return the search results.
+     * @throws UnsafeSearchException if the search would traverse the repository.
+     * @throws RepositoryException
+     */
+    public Results getResults(final SlingHttpServletRequest request) throws UnsafeSearchException, RepositoryException {
+        final QuerySearchProviderImpl.PreparedSearch preparedSearch = querySearchProvider.prepare(request);
+        final ResourceResolver resourceResolver = request.getResourceResolver();
+        final PagePredicate pagePredicate = preparedSearch.getPagePredicate();
+        final QueryCursor cursor = preparedSearch.getCursor();
+        final PredicateGroup root = preparedSearch.getRoot();
+        final long queryStart = preparedSearch.getQueryStart();
+
+        final Map<String, String> params = PredicateConverter.createMap(root);
+        final Sql2QueryCompiler.Template template = getTemplate(params);
+
+        // Facet counts are extracted by QueryBuilder; Oak facets require index-specific configuration
+        if (template == null || pagePredicate.isFacetCounts() || Sql2QueryExecutor.isUnlimited(params)) {
+            return querySearchProvider.getResults(request, preparedSearch);
+        }
+
+        final Session session = resourceResolver.adaptTo(Session.class);
+        final Map<String, Value> bindValues;
+
+        try {
+            bindValues = template.bind(params, session.getValueFactory());
+        } catch (Sql2QueryCompiler.UnsupportedPredicateException e) {
+            log.debug("Could not bind the request values to the JCR-SQL2 statement; searching using QueryBuilder", e);
+            return querySearchProvider.getResults(request, preparedSearch);
+        }
+
+        final String cacheKey = (queryResultsCache.isEnabled() || searchCoalescer.isEnabled()) ? CACHE_KEY_PREFIX + queryResultsCache.getCacheKey(resourceResolver, root) : null;
+        CachedQueryResult queryResult = (cacheKey != null && queryResultsCache.isEnabled()) ? queryResultsCache.get(cacheKey) : null;
+        long timeTaken = 0;
+
+        if (queryResult == null) {
+            // Only the caller that executes the query logs it; callers joining a coalesced execution do not
+            final SearchCoalescer.Execution execution = () -> {
+                final CachedQueryResult result = Sql2QueryExecutor.execute(session, template, bindValues, params, root, pagePredicate.getTimeBudget(), pagePredicate.getReadLimit());
+
+                slowSearchLog.record(request, root, result.getQueryStatement(), result.getHitPaths().size(), result.getTotalMatches(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - queryStart));
+
+                if (cacheKey != null && queryResultsCache.isEnabled() && !result.isPartial()) {
+                    queryResultsCache.put(cacheKey, result);
+                }
+
+                return result;
+            };
+
+            queryResult = cacheKey != null ? searchCoalescer.execute(cacheKey, execution) : execution.execute();
+            timeTaken = queryResult.getExecutionTimeMillis();
+        }
+
+        SearchTimer.record(request, SearchTimer.PHASE_QUERY, queryStart);
+
+        final QueryBuilderResultsImpl resultsImpl = new QueryBuilderResultsImpl(queryResult, timeTaken, hitPath -> QuerySearchParams.adaptHit(modelFactory, request, cursor, hitPath));
+        QuerySearchParams.applyCursor(request, pagePredicate, cursor, queryResult.getHitPaths(), resultsImpl);
+
+        return resultsImpl;
+    }
+
+    /**
+     * @param params the flat QueryBuilder parameters.
+     * @return the compiled JCR-SQL2 statement template for the structure of params, or null if params cannot be expressed in JCR-SQL2.
+     */
+    private Sql2QueryCompiler.Template getTemplate(final Map<String, String> params) {
+        final String fingerprint = Sql2QueryCompiler.getFingerprint(params);
+
+        try {
+            return templates.get(fingerprint, () -> {
+                try {
+                    return Optional.of(Sql2QueryCompiler.compile(params));
+                } catch (Sql2QueryCompiler.UnsupportedPredicateException e) {
+                    log.debug("Search predicates cannot be compiled to JCR-SQL2; searching using QueryBuilder", e);
+                    return Optional.empty();
+                }
+            }).orElse(null);
+        } catch (ExecutionException e) {
+            log.error("Could not compile the search predicates to JCR-SQL2", e);
+            return null;
+        }
+    }
+
+    @Activate
+    @Modified
+    protected void activate(final Cfg cfg) {
+        this.cfg = cfg;
+        this.templates = CacheBuilder.newBuilder()
+                .maximumSize(cfg.max_templates())
+                .build();
+    }
+
+    @ObjectClassDefinition(name = "Asset Share Commons - Search Provider - JCR-SQL2")
+    public @interface Cfg {
+        @AttributeDefinition(
+                name = "Enabled",
+                description = "Execute searches as parameterized JCR-SQL2 queries rather than via QueryBuilder. Searches whose predicates cannot be expressed in JCR-SQL2, and all searches while a QuerySearchPostProcessor is registered, use QueryBuilder."
+        )
+        boolean enabled() default false;
+
+        @AttributeDefinition(
+                name = "Sample percentage",
+                description = "The percentage (0 - 100) of visitors whose searches are executed using JCR-SQL2; the remainder use QueryBuilder. Visitors are sampled by a hash of the sample cookie's value, else of their HTTP session ID, else of their user ID, so all pages of a search use the same engine. Allows the two to be compared on the same traffic. "
+                        + "All anonymous visitors share a user ID, so on publish a sample cookie is required for anything but 0 or 100 to split anonymous traffic."
+        )
+        int sample_percentage() default 100;
+
+        @AttributeDefinition(
+                name = "Sample cookie",
+                description = "The name of a cookie holding a stable per-visitor ID (for example an analytics visitor ID cookie) to sample visitors by. Leave blank to sample by HTTP session or user ID."
+        )
+        String sample_cookie() default "";
+
+        @AttributeDefinition(
+                name = "Max templates",
+                description = "The maximum number of compiled statement templates to cache. A template is compiled per distinct search page configuration and combination of used search predicates."
+        )
+        long max_templates() default 500;
+    }
+}
@@ -35,7 +35,11 @@ public interface Results {
 
     enum Status {
         SUCCESS,
-        ERROR
+        ERROR,
+        /**
+         * The search was stopped by the search page's time budget or read limit; the results are those collected so far.
+         */
+        PARTIAL
     }
 
     /**
@@ -78,6 +82,13 @@ public interface Results {
      */
     Status getStatus();
 
+    /**
+     * @return true if the search was stopped by its time budget or read limit, and only partial results are available (see Status.PARTIAL).
+     */
+    default boolean isPartial() {
+        return Status.PARTIAL.equals(getStatus());
+    }
+
     /**
      * This method acts as a flexible extension point to expose additional data.
      *
@@ -19,27 +19,42 @@
 
 package com.adobe.aem.commons.assetshare.search.results.impl.results;
 
+import com.adobe.aem.commons.assetshare.search.impl.cache.CachedQueryResult;
 import com.adobe.aem.commons.assetshare.search.results.Result;
 import com.adobe.aem.commons.assetshare.search.results.Results;
-import com.day.cq.search.facets.Facet;
 import com.day.cq.search.result.SearchResult;
 import org.apache.sling.api.resource.ValueMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.Map;
+import java.util.function.Function;
 
 public class QueryBuilderResultsImpl extends AbstractResultsImpl implements Results {
-    private final SearchResult searchResult;
+    private static final Logger log = LoggerFactory.getLogger(QueryBuilderResultsImpl.class);
 
-    private Map<String, Facet> facets = null;
+    /**
+     * The additional data key of the facet counts (Map of predicate path to Map of value to count), when the search page extracts facets.
+     */
+    public static final String ADDITIONAL_DATA_FACETS = "facets";
+
+    /**
+     * The additional data key of the query language (ie. JCR-SQL2) the search was executed in, when it was not executed by QueryBuilder in order to enforce the search page's time budget.
+     */
+    public static final String ADDITIONAL_DATA_QUERY_LANGUAGE = "queryLanguage";
+
+    private final List<String> hitPaths;
+
+    private final Function<String, Result> hitAdapter;
 
     public QueryBuilderResultsImpl(List<Result> results,
                                       SearchResult searchResult)  {
         this.results = Collections.unmodifiableList(results);
         this.size = this.results.size();
-
-        this.searchResult = searchResult;
+        this.hitPaths = null;
+        this.hitAdapter = null;
 
         this.total = searchResult.getTotalMatches();
         this.timeTaken = searchResult.getExecutionTimeMillis();
@@ -50,8 +65,105 @@ public class QueryBuilderResultsImpl extends AbstractResultsImpl implements Resu
         this.status = Status.SUCCESS;
     }
 
-    final SearchResult getSearchResult() {
-        return this.searchResult;
+    /**
+     * Creates a Results object whose hits are only adapted to Result objects when getResults() is first called.
+     *
+     * @param hitPaths the paths of the search result's hits.
+     * @param searchResult the QueryBuilder search result.
+     * @param hitAdapter adapts a hit path to a Result; may return null if the hit cannot be adapted.
+     */
+    public QueryBuilderResultsImpl(List<String> hitPaths,
+                                   SearchResult searchResult,
+                                   Function<String, Result> hitAdapter) {
+        this.results = null;
+        this.hitPaths = Collections.unmodifiableList(hitPaths);
+        this.hitAdapter = hitAdapter;
+
+        this.total = searchResult.getTotalMatches();
+        this.timeTaken = searchResult.getExecutionTimeMillis();
+        this.nextOffset = searchResult.getNextPage() != null ? searchResult.getNextPage().getStart() : -1;
+        this.runningTotal = searchResult.getStartIndex() + hitPaths.size();
+
+        this.more = searchResult.hasMore() || this.runningTotal < searchResult.getTotalMatches();
+        this.status = Status.SUCCESS;
+    }
+
+    /**
+     * Creates a Results object from a cached query result, whose hits are only adapted to Result objects when getResults() is first called.
+     *
+     * @param cachedQueryResult the cached query result.
+     * @param timeTaken the time taken to execute this search in milliseconds; as no query is executed this is typically 0.
+     * @param hitAdapter adapts a hit path to a Result; may return null if the hit cannot be adapted.
+     */
+    public QueryBuilderResultsImpl(CachedQueryResult cachedQueryResult,
+                                   long timeTaken,
+                                   Function<String, Result> hitAdapter) {
+        this.results = null;
+        this.hitPaths = cachedQueryResult.getHitPaths();
+        this.hitAdapter = hitAdapter;
+
+        this.total = cachedQueryResult.getTotalMatches();
+        this.timeTaken = timeTaken;
+        this.nextOffset = cachedQueryResult.getNextOffset();
+        this.runningTotal = cachedQueryResult.getStartIndex() + cachedQueryResult.getHitPaths().size();
+
+        this.more = cachedQueryResult.hasMore() || this.runningTotal < cachedQueryResult.getTotalMatches();
+        this.status = cachedQueryResult.isPartial() ? Status.PARTIAL : Status.SUCCESS;
+
+        if (cachedQueryResult.getFacets() != null) {
+            this.additionalData.put(ADDITIONAL_DATA_FACETS, cachedQueryResult.getFacets());
+        }
+    }
+
+    /**
+     * The hits are adapted on the first call to this method; the adapted results are retained for the life of this object.
+     *
+     * @return the list of results.
+     */
+    @Override
+    public List<Result> getResults() {
+        if (results == null) {
+            final List<Result> adaptedResults = new ArrayList<>(hitPaths.size());
+
+            for (final String hitPath : hitPaths) {
+                final Result result = hitAdapter.apply(hitPath);
+                if (result != null) {
+                    adaptedResults.add(result);
+                }
+            }
+
+            log.debug("Adapted [ {} ] results to Result models", adaptedResults.size());
+
+            results = Collections.unmodifiableList(adaptedResults);
+            size = results.size();
+        }
+
+        return results;
+    }
+
+    /**
+     * Hits that cannot be adapted are not results, so the hits are adapted (see getResults()) if they were not yet.
+     *
+     * @return the number of results.
+     */
+    @Override
+    public long getSize() {
+        return getResults().size();
+    }
+
+    /**
+     * Re-bases the paging values of these results when the query was restricted by a keyset pagination cursor rather than by an offset.
+     *
+     * @param precedingResults the number of results returned by the previous pages.
+     * @param visitedHits the number of this query's hits that were already returned by the previous pages, and are skipped by the hitAdapter.
+     */
+    public void applyCursor(long precedingResults, long visitedHits) {
+        final long hits = hitPaths != null ? hitPaths.size() : size;
+
+        this.total = precedingResults + this.total - visitedHits;
+        this.runningTotal = precedingResults + hits - visitedHits;
+        this.more = this.more || this.runningTotal < this.total;
+        this.nextOffset = this.more ? this.runningTotal : -1;
     }
 
     @Override
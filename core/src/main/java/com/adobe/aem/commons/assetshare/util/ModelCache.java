@@ -1,5 +1,6 @@
 package com.adobe.aem.commons.assetshare.util;
 
+import org.apache.sling.api.resource.Resource;
 import org.osgi.annotation.versioning.ProviderType;
 
 /**
@@ -25,7 +26,7 @@ import org.osgi.annotation.versioning.ProviderType;
  * Considerations:
  * - If the requested model does not exist in the ModelCache, it will be adapted from the SlingHttpServletRequest, cached and returned to the requesting code.
  * - Cache-able models MUST be adaptable from SlingHttpServletRequest.
- * - Only ONE instance of a particular Sling Model Class type can exist in the cache (for that request).
+ * - Only ONE instance of a particular Sling Model Class type can exist in the cache (for that request); unless it is gotten for a specific resource via get(clazz, resource), in which case one instance per resource can exist.
  */
 @ProviderType
 public interface ModelCache {
@@ -41,6 +42,19 @@ public interface ModelCache {
      */
     <T> T get(Class<T> clazz);
 
+    /**
+     * This method is preferred from use in Java code that adapts models for resources other than the request's resource, such as assets.
+     *
+     *    ModelCache modelCache = request.adaptTo(ModelCache.class);
+     *    AssetModel asset = modelCache.get(AssetModel.class, assetResource);
+     *
+     * @param clazz The Sling Model class to get from the cache.
+     * @param resource The resource the model is adapted for; the model is adapted from the SlingHttpServletRequest wrapped so its resource is this resource.
+     * @param <T> The Sling Model class to get from the cache.
+     * @return the cached sling model for the resource.
+     */
+    <T> T get(Class<T> clazz, Resource resource);
+
     /**
      * This method is preferred from use in HTL code where classes can NOT explicitly provided, but Strings can be easily passed.
      *
@@ -0,0 +1,142 @@
+/*
+ * Asset Share Commons
+ *
+ * Copyright (C) 2018 Adobe
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.adobe.aem.commons.assetshare.util.impl;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free latency histogram with fixed buckets, reported in the histogram's time unit.
+ */
+public final class LatencyHistogram {
+    // Upper bounds (inclusive) of the buckets in milliseconds; the last bucket is unbounded
+    private static final long[] MILLISECOND_BUCKETS = {1, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000};
+
+    // Upper bounds (inclusive) of the buckets in microseconds; the last bucket is unbounded
+    private static final long[] MICROSECOND_BUCKETS = {1, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000, 25000, 100000, 1000000};
+
+    private final TimeUnit unit;
+    private final long[] buckets;
+    private final AtomicLongArray counts;
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    private LatencyHistogram(final TimeUnit unit, final long[] buckets) {
+        this.unit = unit;
+        this.buckets = buckets;
+        this.counts = new AtomicLongArray(buckets.length + 1);
+    }
+
+    /**
+     * @return a histogram with buckets from 1ms to 10s, reported in milliseconds.
+     */
+    public static LatencyHistogram milliseconds() {
+        return new LatencyHistogram(TimeUnit.MILLISECONDS, MILLISECOND_BUCKETS);
+    }
+
+    /**
+     * @return a histogram with buckets from 1µs to 1s, reported in microseconds.
+     */
+    public static LatencyHistogram microseconds() {
+        return new LatencyHistogram(TimeUnit.MICROSECONDS, MICROSECOND_BUCKETS);
+    }
+
+    public void record(final long nanos) {
+        final long value = unit.convert(nanos, TimeUnit.NANOSECONDS);
+        int bucket = 0;
+
+        while (bucket < buckets.length && value > buckets[bucket]) {
+            bucket++;
+        }
+
+        counts.incrementAndGet(bucket);
+        count.incrementAndGet();
+        totalNanos.addAndGet(nanos);
+        maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public double getMean() {
+        final long n = count.get();
+        return n == 0 ? 0 : toUnit(totalNanos.get()) / n;
+    }
+
+    public double getMax() {
+        return toUnit(maxNanos.get());
+    }
+
+    /**
+     * @param percentile the percentile (0 - 100).
+     * @return the upper bound of the bucket containing the percentile, or the max if it falls in the unbounded bucket.
+     */
+    public double getPercentile(final double percentile) {
+        final long n = count.get();
+
+        if (n == 0) {
+            return 0;
+        }
+
+        final long rank = (long) Math.ceil(n * percentile / 100);
+        long seen = 0;
+
+        for (int bucket = 0; bucket < buckets.length; bucket++) {
+            seen += counts.get(bucket);
+
+            if (seen >= rank) {
+                return Math.min(buckets[bucket], getMax());
+            }
+        }
+
+        return getMax();
+    }
+
+    /**
+     * @return the bucket counts, formatted as "&lt;=1ms:3, &lt;=5ms:10, ..., &gt;10000ms:0".
+     */
+    public String getBuckets() {
+        final String unitLabel = TimeUnit.MICROSECONDS.equals(unit) ? "µs" : "ms";
+        final StringBuilder sb = new StringBuilder();
+
+        for (int bucket = 0; bucket <= buckets.length; bucket++) {
+            if (sb.length() > 0) {
+                sb.append(", ");
+            }
+
+            if (bucket < buckets.length) {
+                sb.append("<=").append(buckets[bucket]);
+            } else {
+                sb.append('>').append(buckets[buckets.length - 1]);
+            }
+
+            sb.append(unitLabel).append(':').append(counts.get(bucket));
+        }
+
+        return sb.toString();
+    }
+
+    private double toUnit(final long nanos) {
+        return nanos / (double) unit.toNanos(1);
+    }
+}
@@ -2,6 +2,7 @@ package com.adobe.aem.commons.assetshare.util.impl;
 
 import com.adobe.aem.commons.assetshare.util.ModelCache;
 import org.apache.sling.api.SlingHttpServletRequest;
+import org.apache.sling.api.resource.Resource;
 import org.apache.sling.commons.classloader.DynamicClassLoaderManager;
 import org.apache.sling.models.annotations.Model;
 import org.apache.sling.models.annotations.injectorspecific.OSGiService;
@@ -10,6 +11,10 @@ import org.apache.sling.models.factory.ModelFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
 @Model(
     adaptables = { SlingHttpServletRequest.class },
     adapters = { ModelCache.class }
@@ -19,6 +24,9 @@ public class ModelCacheImpl extends AbstractHTLMap implements ModelCache {
 
     private static String REQUEST_ATTRIBUTE_KEY_PREFIX = "asset-share-commons__request_models_cache__";
 
+    // The classes resolved by class name, for the dynamic class loader they were resolved with
+    private static volatile ResolvedClasses resolvedClasses = new ResolvedClasses(null);
+
     @Self
     private SlingHttpServletRequest request;
 
@@ -37,7 +45,7 @@ public class ModelCacheImpl extends AbstractHTLMap implements ModelCache {
         Class clazz = null;
 
         try {
-            clazz = Class.forName((String) key, true, dynamicClassLoaderManager.getDynamicClassLoader());
+            clazz = resolveClass((String) key);
             return get(clazz);
         } catch (ClassNotFoundException e) {
             throw new IllegalArgumentException("Unable to derive a class from " + (String)key);
@@ -46,26 +54,73 @@ public class ModelCacheImpl extends AbstractHTLMap implements ModelCache {
 
     @Override
     public final <T> T get(Class<T> clazz) {
-        final String requestAttributeKey = getRequestAttributeKey(clazz);
+        return get(clazz, getRequestAttributeKey(clazz), () -> request.adaptTo(clazz));
+    }
+
+    @Override
+    public final <T> T get(Class<T> clazz, Resource resource) {
+        if (resource == null) {
+            throw new IllegalArgumentException("The resource must not be null");
+        }
+
+        return get(clazz, getRequestAttributeKey(clazz) + "__" + resource.getPath(), () -> modelFactory.getModelFromWrappedRequest(request, resource, clazz));
+    }
+
+    private <T> T get(final Class<T> clazz, final String requestAttributeKey, final Supplier<T> adapter) {
         final Object cachedModel = request.getAttribute(requestAttributeKey);
 
         if (cachedModel == null) {
-            final T model = request.adaptTo(clazz);
+            final T model = adapter.get();
             if (model != null) {
                 request.setAttribute(requestAttributeKey, model);
-                log.debug("Initial caching of model [ {} ]", clazz.getName());
+                log.debug("Initial caching of model [ {} ]", requestAttributeKey);
                 return model;
             } else {
-                log.debug("Could not create a model to cache for [ {} ] from the SlingHttpServletRequest", clazz.getName());
+                log.debug("Could not create a model to cache for [ {} ] from the SlingHttpServletRequest", requestAttributeKey);
                 return null;
             }
         } else {
-            log.debug("Served model for [ {} ] from cache", clazz.getName());
+            log.debug("Served model for [ {} ] from cache", requestAttributeKey);
             return (T) cachedModel;
         }
     }
 
+    /**
+     * Classes are only resolved via the dynamic class loader once; the resolved classes are discarded when the dynamic class loader changes (ie. when bundles are updated).
+     *
+     * @param className the full class name.
+     * @return the class.
+     * @throws ClassNotFoundException if the class cannot be resolved.
+     */
+    private Class resolveClass(final String className) throws ClassNotFoundException {
+        final ClassLoader classLoader = dynamicClassLoaderManager.getDynamicClassLoader();
+        ResolvedClasses classes = resolvedClasses;
+
+        if (classes.classLoader != classLoader) {
+            classes = new ResolvedClasses(classLoader);
+            resolvedClasses = classes;
+        }
+
+        Class clazz = classes.classes.get(className);
+
+        if (clazz == null) {
+            clazz = Class.forName(className, true, classLoader);
+            classes.classes.putIfAbsent(className, clazz);
+        }
+
+        return clazz;
+    }
+
     private String getRequestAttributeKey(final Class clazz) {
         return REQUEST_ATTRIBUTE_KEY_PREFIX + clazz.getName();
     }
+
+    private static final class ResolvedClasses {
+        private final ClassLoader classLoader;
+        private final ConcurrentMap<String, Class> classes = new ConcurrentHashMap<>();
+
+        private ResolvedClasses(final ClassLoader classLoader) {
+            this.classLoader = classLoader;
+        }
+    }
 }
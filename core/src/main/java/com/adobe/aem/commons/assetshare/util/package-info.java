@@ -17,7 +17,7 @@
  *
  */
 
-@Version("1.4.0")
+@Version("1.5.0")
 package com.adobe.aem.commons.assetshare.util;
 
 import org.osgi.annotation.versioning.Version;